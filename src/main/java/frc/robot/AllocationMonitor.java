@@ -0,0 +1,207 @@
+package frc.robot;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.DataLogManager;
+
+/**
+ * Measure the bytes the robot thread allocates in each phase of Robot.robotPeriodic() and relate
+ * garbage collections to loop overruns.
+ *
+ * <p>Every "new" in the loop - LEDPattern.solid() every iteration, Time objects, commands made and
+ * scheduled every iteration - is garbage that has to be collected sometime, and a collection can
+ * stop the robot thread long enough to overrun the loop. This shows which phase allocates and if the
+ * overruns happen with a collection.
+ *
+ * <p>The phases are reported by the {@link LoopTimer} - attach with
+ * {@link LoopTimer#setAllocationMonitor(AllocationMonitor)}. The allocation counter is the JVM's
+ * count of bytes allocated by the current thread so reading it doesn't allocate.
+ *
+ * <p>Output to the DataLog:
+ * <ul>
+ * <li>"Allocation/summary" - every second: average bytes per loop of before commands, scheduler,
+ * after commands; maximum bytes of a loop; collections; collection time (ms); overruns; overruns
+ * with a collection in the same or the previous loop
+ * <li>"Allocation/gcPause" - each collection's duration (ms)
+ * </ul>
+ *
+ * <p>Alerts warn when the average allocation per loop is over the threshold and when loops overrun
+ * while collecting garbage.
+ */
+public class AllocationMonitor {
+  private static final long m_summaryPeriodNs = 1_000_000_000L;
+
+  private final ThreadMXBean m_threadBean;
+  private final boolean m_supported;
+  private final long m_bytesPerLoopThreshold;
+
+  private long m_phaseStartBytes;
+  private long m_loopStartBytes;
+  private final long[] m_phaseBytes = new long[LoopTimer.AFTER + 1]; // summed over the window
+  private long m_maxLoopBytes;
+  private long m_loops;
+  private long m_overruns;
+  private long m_overrunsWithGC;
+  private long m_gcCountAtPreviousLoop;
+  private boolean m_gcInPreviousLoop;
+  private long m_nextSummary;
+  private long m_gcCountAtSummary;
+  private long m_gcMillisAtSummary;
+
+  // written by the JVM notification thread
+  private final AtomicLong m_gcCount = new AtomicLong();
+  private final AtomicLong m_gcMillis = new AtomicLong();
+
+  private final DoubleArrayLogEntry m_summaryLogEntry;
+  private final DoubleLogEntry m_gcPauseLogEntry;
+  private final double[] m_summary = new double[8];
+  private final Alert m_allocationAlert = new Alert("", AlertType.kWarning);
+  private final Alert m_gcOverrunAlert = new Alert("Loop overruns during garbage collection", AlertType.kWarning);
+
+  /**
+   * @param bytesPerLoopThreshold warn if the average allocation per loop in a second is more than
+   *     this
+   */
+  public AllocationMonitor(long bytesPerLoopThreshold) {
+    m_bytesPerLoopThreshold = bytesPerLoopThreshold;
+
+    DataLog log = DataLogManager.getLog();
+    m_summaryLogEntry = new DoubleArrayLogEntry(log, "Allocation/summary");
+    m_gcPauseLogEntry = new DoubleLogEntry(log, "Allocation/gcPause");
+
+    java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (threadBean instanceof ThreadMXBean && ((ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+      m_threadBean = (ThreadMXBean) threadBean;
+      m_threadBean.setThreadAllocatedMemoryEnabled(true);
+      m_supported = true;
+    } else {
+      m_threadBean = null;
+      m_supported = false;
+      new Alert("Allocation monitor not supported by this JVM", AlertType.kInfo).set(true);
+    }
+
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (gc instanceof NotificationEmitter) {
+        ((NotificationEmitter) gc).addNotificationListener(
+            (notification, handback) -> {
+              if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                long duration = GarbageCollectionNotificationInfo
+                    .from((CompositeData) notification.getUserData()).getGcInfo().getDuration();
+                m_gcCount.incrementAndGet();
+                m_gcMillis.addAndGet(duration);
+                m_gcPauseLogEntry.append(duration);
+              }
+            },
+            null, null);
+      }
+    }
+  }
+
+  /**
+   * Start of the loop
+   */
+  public void startLoop() {
+    if (!m_supported) {
+      return;
+    }
+    m_loopStartBytes = m_threadBean.getCurrentThreadAllocatedBytes();
+    m_phaseStartBytes = m_loopStartBytes;
+  }
+
+  /**
+   * End of a phase
+   *
+   * @param phase LoopTimer.BEFORE, SCHEDULER, or AFTER
+   */
+  public void endPhase(int phase) {
+    if (!m_supported) {
+      return;
+    }
+    long bytes = m_threadBean.getCurrentThreadAllocatedBytes();
+    m_phaseBytes[phase] += bytes - m_phaseStartBytes;
+    m_phaseStartBytes = bytes;
+  }
+
+  /**
+   * End of the loop
+   *
+   * @param overrun the loop took longer than the period
+   */
+  public void endLoop(boolean overrun) {
+    long now = System.nanoTime();
+    if (m_supported) {
+      long loopBytes = m_threadBean.getCurrentThreadAllocatedBytes() - m_loopStartBytes;
+      m_maxLoopBytes = Math.max(m_maxLoopBytes, loopBytes);
+    }
+    m_loops++;
+
+    // collections are reported a little after they happen so count the previous loop, too
+    long gcCount = m_gcCount.get();
+    boolean gcInLoop = gcCount != m_gcCountAtPreviousLoop;
+    m_gcCountAtPreviousLoop = gcCount;
+    if (overrun) {
+      m_overruns++;
+      if (gcInLoop || m_gcInPreviousLoop) {
+        m_overrunsWithGC++;
+      }
+    }
+    m_gcInPreviousLoop = gcInLoop;
+
+    if (m_nextSummary == 0) {
+      m_nextSummary = now + m_summaryPeriodNs;
+    }
+    if (now >= m_nextSummary) {
+      m_nextSummary = now + m_summaryPeriodNs;
+      summarize();
+    }
+  }
+
+  /**
+   * Log the window's summary, set the alerts, and start a new window
+   */
+  private void summarize() {
+    long gcCount = m_gcCount.get();
+    long gcMillis = m_gcMillis.get();
+
+    m_summary[0] = (double) m_phaseBytes[LoopTimer.BEFORE] / m_loops;
+    m_summary[1] = (double) m_phaseBytes[LoopTimer.SCHEDULER] / m_loops;
+    m_summary[2] = (double) m_phaseBytes[LoopTimer.AFTER] / m_loops;
+    m_summary[3] = m_maxLoopBytes;
+    m_summary[4] = gcCount - m_gcCountAtSummary;
+    m_summary[5] = gcMillis - m_gcMillisAtSummary;
+    m_summary[6] = m_overruns;
+    m_summary[7] = m_overrunsWithGC;
+    m_summaryLogEntry.append(m_summary);
+
+    double averageLoopBytes = m_summary[0] + m_summary[1] + m_summary[2];
+    boolean overThreshold = m_supported && averageLoopBytes > m_bytesPerLoopThreshold;
+    if (overThreshold) {
+      m_allocationAlert.setText("Allocating " + (long) averageLoopBytes + " bytes per loop");
+    }
+    m_allocationAlert.set(overThreshold);
+    m_gcOverrunAlert.set(m_overrunsWithGC > 0);
+
+    m_gcCountAtSummary = gcCount;
+    m_gcMillisAtSummary = gcMillis;
+    m_phaseBytes[LoopTimer.BEFORE] = 0;
+    m_phaseBytes[LoopTimer.SCHEDULER] = 0;
+    m_phaseBytes[LoopTimer.AFTER] = 0;
+    m_maxLoopBytes = 0;
+    m_loops = 0;
+    m_overruns = 0;
+    m_overrunsWithGC = 0;
+  }
+}
@@ -0,0 +1,195 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.WrapperCommand;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+
+/**
+ * Measure how long it takes from a trigger's condition becoming true until the bound command's
+ * initialize() runs.
+ *
+ * <p>Debounce, the order triggers are polled, and a command scheduled by a command (it's initialized
+ * after the commands run and its trigger isn't polled until the next loop) all add latency that
+ * isn't obvious reading the code. This makes it a number that can be compared before and after a
+ * change.
+ *
+ * <p>A {@link Binding} is a named histogram. Tell it when the condition becomes true - wrap the raw
+ * condition with {@link Binding#watch(BooleanSupplier)} before any debounce or use
+ * {@link Binding#markTrue()} where the code sets an InternalButton - and when the command starts -
+ * wrap the bound command with {@link Binding#measure(Command)} or call {@link Binding#initialized()}.
+ * The latency of each true edge is recorded once, at the first initialize after it. A watched
+ * condition that goes false before a command starts is forgotten (a press shorter than the
+ * debounce). Watch one condition per binding - another condition going false would forget this
+ * one's edge - so watch the combined condition of an or().
+ *
+ * <p>Bindings with the same name share the histogram. Every {@value #m_publishPeriodUs} microseconds
+ * the median, 99th percentile, maximum (ms), and count of each binding that fired are published to NT
+ * "BindingLatency/name" and the histograms are emptied.
+ *
+ * <p>Usage:
+<pre><code>
+  var latency = BindingLatency.binding("HistoryFSM Y");
+  latency.watch(m_operatorController.y()).debounce(0.04).onTrue(latency.measure(newColor()));
+  ...
+  BindingLatency.publish(); // in runAfterCommands()
+</code></pre>
+ */
+public final class BindingLatency {
+  private static final long m_publishPeriodUs = 1_000_000;
+  private static final double m_nsToMs = 1.e-6;
+  private static long m_nextPublishUs;
+  private static final HashMap<String, Binding> m_bindings = new HashMap<>();
+  private static final List<Binding> m_bindingList = new ArrayList<>(); // iterate without an iterator
+  private static NetworkTable m_nt;
+
+  private BindingLatency() {}
+
+  /**
+   * One binding's latency
+   */
+  public static final class Binding {
+    private final LatencyHistogram m_histogram = new LatencyHistogram();
+    private final DoubleArrayPublisher m_publisher;
+    private final double[] m_summary = new double[4]; // reused for each publish
+    private long m_trueNs; // 0 if not waiting for a command to start
+
+    private Binding(String name) {
+      if (m_nt == null) {
+        m_nt = NetworkTableInstance.getDefault().getTable("BindingLatency");
+      }
+      m_publisher = m_nt.getDoubleArrayTopic(name).publish();
+    }
+
+    /**
+     * Mark the rising edges of a condition.
+     *
+     * @param condition the raw condition - before debounce
+     * @return a trigger of the same condition to bind to the command (on the default button loop
+     *     unless wrapped by a Trigger of another loop)
+     */
+    public Trigger watch(BooleanSupplier condition) {
+      boolean[] last = {false};
+      return new Trigger(() -> {
+        boolean value = condition.getAsBoolean();
+        if (value && !last[0]) {
+          markTrue();
+        } else if (!value && last[0]) {
+          m_trueNs = 0; // released before anything started
+        }
+        last[0] = value;
+        return value;
+      });
+    }
+
+    /**
+     * The condition just became true - for conditions set by the code such as an InternalButton.
+     * The first edge is kept until a command starts.
+     */
+    public void markTrue() {
+      if (m_trueNs == 0) {
+        m_trueNs = System.nanoTime();
+      }
+    }
+
+    /**
+     * Forget a true condition that didn't start a command
+     */
+    public void clear() {
+      m_trueNs = 0;
+    }
+
+    /**
+     * The bound command is starting. Records the latency if the condition became true since the
+     * last command started.
+     */
+    public void initialized() {
+      if (m_trueNs != 0) {
+        m_histogram.record(System.nanoTime() - m_trueNs);
+        m_trueNs = 0;
+      }
+    }
+
+    /**
+     * Decorate the bound command to record the latency when it initializes. The name and other
+     * properties are those of the command.
+     *
+     * @param command the bound command
+     * @return the command wrapped with the measurement
+     */
+    public Command measure(Command command) {
+      return new MeasuredCommand(command, this);
+    }
+
+    private void publish() {
+      if (m_histogram.count() == 0) {
+        return; // keep the last values of a binding that didn't fire this window
+      }
+      m_summary[0] = m_histogram.percentile(0.5) * m_nsToMs;
+      m_summary[1] = m_histogram.percentile(0.99) * m_nsToMs;
+      m_summary[2] = m_histogram.max() * m_nsToMs;
+      m_summary[3] = m_histogram.count();
+      m_publisher.set(m_summary);
+      m_histogram.reset();
+    }
+  }
+
+  /**
+   * Get the binding of a name - created the first time. Do this at startup or when the commands and
+   * triggers are created.
+   *
+   * @param name name of the binding in NT
+   * @return the binding
+   */
+  public static Binding binding(String name) {
+    Binding binding = m_bindings.get(name);
+    if (binding == null) {
+      binding = new Binding(name);
+      m_bindings.put(name, binding);
+      m_bindingList.add(binding);
+    }
+    return binding;
+  }
+
+  /**
+   * Publish the summaries if it's time and start new windows. Run periodically - in
+   * runAfterCommands().
+   */
+  public static void publish() {
+    long now = RobotController.getFPGATime();
+    if (now < m_nextPublishUs) {
+      return;
+    }
+    m_nextPublishUs = now + m_publishPeriodUs;
+
+    for (int i = 0; i < m_bindingList.size(); i++) {
+      m_bindingList.get(i).publish();
+    }
+  }
+
+  /**
+   * The measuring wrapper
+   */
+  private static final class MeasuredCommand extends WrapperCommand {
+    private final Binding m_binding;
+
+    private MeasuredCommand(Command command, Binding binding) {
+      super(command);
+      m_binding = binding;
+    }
+
+    @Override
+    public void initialize() {
+      m_binding.initialized();
+      m_command.initialize();
+    }
+  }
+}
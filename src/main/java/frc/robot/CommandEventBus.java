@@ -0,0 +1,520 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+
+/**
+ * One set of CommandScheduler callbacks for everything that wants to know about command
+ * initialize, execute, interrupt, and finish - logging, profiling, metrics, dashboards, FSM tracing.
+ *
+ * <p>Each scheduler event is captured once into a reused {@link CommandEvent} with the command's
+ * {@link CommandId} - its id, names, and requirements resolved the first time the command is seen -
+ * and handed to each subscriber that wants it. A new subscriber costs a mask check per event and
+ * nothing is allocated.
+ *
+ * <p>Subscribers choose:
+ * <ul>
+ * <li>the event types - a mask of {@link #INITIALIZE}, {@link #EXECUTE}, {@link #INTERRUPT},
+ * {@link #FINISH} bits
+ * <li>the commands - an optional filter tested once per command (not per event)
+ * <li>immediate delivery in the scheduler or batches delivered by {@link #periodic()} after the
+ * scheduler runs (or sooner if the batch fills)
+ * </ul>
+ *
+ * <p>The events are reused so a subscriber must copy anything it keeps. Each subscription has an
+ * attachment slot in every CommandId for the subscriber's own per-command state.
+ *
+ * <p>Command instances with the same class, name, and requirements share a CommandId - one
+ * dictionary entry and one set of totals - but each instance runs separately. The run state (the
+ * execute count and the start time of the run) is kept per instance and comes with each event, so
+ * two instances running at once, like the two waitSeconds(0.3) of a race, don't reset each other's
+ * counts or start times. Attachments hold per-command totals, not per-run state.
+ *
+ * <p>Usage:
+<pre><code>
+  CommandEventBus bus = CommandEventBus.getInstance();
+  int slot = bus.subscribe(event -> count(event.getCommand()),
+      CommandEventBus.mask(CommandEventBus.INITIALIZE, CommandEventBus.FINISH),
+      id -> id.getKey().startsWith("Moore"), 0); // immediate delivery
+  ...
+  CommandEventBus.getInstance().periodic(); // in runAfterCommands() for the batches
+</code></pre>
+ */
+public final class CommandEventBus {
+  // event types
+  public static final int INITIALIZE = 0;
+  public static final int EXECUTE = 1;
+  public static final int INTERRUPT = 2;
+  public static final int FINISH = 3;
+  public static final int ALL = 0b1111; // mask of all the types
+
+  private static final int m_maxSubscribers = 64; // bits of the filter caches
+  private static final int m_otherSubsystemsBit = 63; // shared by subsystems beyond the first 63
+
+  private static CommandEventBus m_instance;
+
+  /**
+   * A command as the subscribers see it - resolved once per command. Commands created on the fly
+   * with the same name and requirements share one; their runs are kept apart by the bus.
+   */
+  public static final class CommandId {
+    private final int m_id;
+    private final String m_key; // class/name
+    private final String m_requirements; // {subsystem, subsystem}
+    private final String m_keyRequirements; // key {subsystem, subsystem}
+    private final long m_requirementMask;
+    private final Subsystem[] m_subsystems;
+    private final int[] m_subsystemBits; // bit of each of m_subsystems
+    private final Object[] m_attachments = new Object[m_maxSubscribers];
+    private long m_filterTested; // bit per subscriber
+    private long m_filterPassed; // bit per subscriber
+
+    private CommandId(int id, String key, String requirements, long requirementMask,
+        Subsystem[] subsystems, int[] subsystemBits) {
+      m_id = id;
+      m_key = key;
+      m_requirements = requirements;
+      m_keyRequirements = key + " " + requirements;
+      m_requirementMask = requirementMask;
+      m_subsystems = subsystems;
+      m_subsystemBits = subsystemBits;
+    }
+
+    /** @return small number unique to the command's name and requirements, from 0 */
+    public int getId() {
+      return m_id;
+    }
+
+    /** @return "class/name" */
+    public String getKey() {
+      return m_key;
+    }
+
+    /** @return "{subsystem, subsystem}" */
+    public String getRequirements() {
+      return m_requirements;
+    }
+
+    /** @return "class/name {subsystem, subsystem}" */
+    public String getKeyRequirements() {
+      return m_keyRequirements;
+    }
+
+    /** @return bit per required subsystem; see {@link CommandEventBus#getSubsystemBit(Subsystem)} */
+    public long getRequirementMask() {
+      return m_requirementMask;
+    }
+
+    /** @return number of required subsystems */
+    public int getSubsystemCount() {
+      return m_subsystems.length;
+    }
+
+    /**
+     * @param index 0 to getSubsystemCount() - 1
+     * @return a required subsystem
+     */
+    public Subsystem getSubsystem(int index) {
+      return m_subsystems[index];
+    }
+
+    /**
+     * @param index 0 to getSubsystemCount() - 1
+     * @return bit of the required subsystem in the requirement mask
+     */
+    public int getSubsystemBit(int index) {
+      return m_subsystemBits[index];
+    }
+
+    /**
+     * @param slot the subscriber's slot
+     * @return the subscriber's state for this command or null
+     */
+    public Object getAttachment(int slot) {
+      return m_attachments[slot];
+    }
+
+    /**
+     * @param slot the subscriber's slot
+     * @param attachment the subscriber's state for this command
+     */
+    public void setAttachment(int slot, Object attachment) {
+      m_attachments[slot] = attachment;
+    }
+  }
+
+  /**
+   * Run state of one Command instance - the instances that share a CommandId run separately
+   */
+  private static final class CommandRun {
+    private final CommandId m_id;
+    private int m_runs; // execute count of the current run
+    private long m_startUs; // FPGA time of the run's initialize; 0 if it wasn't seen
+
+    private CommandRun(CommandId id) {
+      m_id = id;
+    }
+  }
+
+  /**
+   * A scheduler event. Reused - copy what is kept.
+   */
+  public static final class CommandEvent {
+    private int m_type;
+    private CommandId m_command;
+    private CommandId m_interruptedBy;
+    private int m_runs;
+    private long m_timeUs;
+    private long m_runStartUs;
+
+    /** @return INITIALIZE, EXECUTE, INTERRUPT, or FINISH */
+    public int getType() {
+      return m_type;
+    }
+
+    /** @return the command */
+    public CommandId getCommand() {
+      return m_command;
+    }
+
+    /** @return the interrupting command or null if not interrupted by a command */
+    public CommandId getInterruptedBy() {
+      return m_interruptedBy;
+    }
+
+    /** @return execute count of the run so far - 1 for the first execute */
+    public int getRuns() {
+      return m_runs;
+    }
+
+    /** @return FPGA time of the event (microseconds) */
+    public long getTimeUs() {
+      return m_timeUs;
+    }
+
+    /**
+     * @return FPGA time (microseconds) of the initialize of this command instance's run or 0 if the
+     *     run started before the bus saw it
+     */
+    public long getRunStartUs() {
+      return m_runStartUs;
+    }
+
+    private void copy(CommandEvent event) {
+      m_type = event.m_type;
+      m_command = event.m_command;
+      m_interruptedBy = event.m_interruptedBy;
+      m_runs = event.m_runs;
+      m_timeUs = event.m_timeUs;
+      m_runStartUs = event.m_runStartUs;
+    }
+  }
+
+  /**
+   * Receives the events
+   */
+  @FunctionalInterface
+  public interface Subscriber {
+    /**
+     * @param event the event - reused after this returns
+     */
+    void onEvent(CommandEvent event);
+
+    /**
+     * After each batch is delivered - batched subscriptions only
+     */
+    default void onBatchEnd() {}
+  }
+
+  /** A subscriber and its choices */
+  private static final class Subscription {
+    private final Subscriber m_subscriber;
+    private final int m_slot;
+    private int m_mask;
+    private final Predicate<CommandId> m_filter; // null is all commands
+    private final CommandEvent[] m_batch; // null is immediate
+    private int m_batchCount;
+
+    private Subscription(Subscriber subscriber, int slot, int mask, Predicate<CommandId> filter, int batchSize) {
+      m_subscriber = subscriber;
+      m_slot = slot;
+      m_mask = mask;
+      m_filter = filter;
+      if (batchSize > 0) {
+        m_batch = new CommandEvent[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+          m_batch[i] = new CommandEvent();
+        }
+      } else {
+        m_batch = null;
+      }
+    }
+
+    private void flush() {
+      if (m_batchCount == 0) {
+        return;
+      }
+      for (int i = 0; i < m_batchCount; i++) {
+        m_subscriber.onEvent(m_batch[i]);
+      }
+      m_batchCount = 0;
+      m_subscriber.onBatchEnd();
+    }
+  }
+
+  // Command doesn't override equals() so this is an identity map - each instance has its own run. It's
+  // weak so the many commands created on the fly (setSignal(...).schedule() every iteration) don't
+  // accumulate.
+  private final WeakHashMap<Command, CommandRun> m_commandRuns = new WeakHashMap<>();
+  private final HashMap<String, CommandId> m_commandIdsByKey = new HashMap<>();
+  private final List<CommandId> m_commandIdList = new ArrayList<>();
+  private final IdentityHashMap<Subsystem, Integer> m_subsystemBits = new IdentityHashMap<>();
+  private final List<Subsystem> m_subsystemList = new ArrayList<>(); // index is the bit
+  private final List<Subscription> m_subscriptions = new ArrayList<>();
+  private final CommandEvent m_event = new CommandEvent();
+
+  private CommandEventBus() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    scheduler.onCommandInitialize(command -> {
+      CommandRun run = commandRun(command);
+      run.m_runs = 0;
+      run.m_startUs = RobotController.getFPGATime();
+      publish(INITIALIZE, run, null);
+    });
+    scheduler.onCommandExecute(command -> {
+      CommandRun run = commandRun(command);
+      run.m_runs++; // first time through count is 1
+      publish(EXECUTE, run, null);
+    });
+    scheduler.onCommandInterrupt((command, interruptedBy) -> {
+      CommandRun run = commandRun(command);
+      publish(INTERRUPT, run, interruptedBy.isPresent() ? commandId(interruptedBy.get()) : null);
+      run.m_runs = 0;
+      run.m_startUs = 0;
+    });
+    scheduler.onCommandFinish(command -> {
+      CommandRun run = commandRun(command);
+      publish(FINISH, run, null);
+      run.m_runs = 0;
+      run.m_startUs = 0;
+    });
+  }
+
+  /**
+   * The bus - the scheduler callbacks are added the first time.
+   *
+   * @return the bus
+   */
+  public static synchronized CommandEventBus getInstance() {
+    if (m_instance == null) {
+      m_instance = new CommandEventBus();
+    }
+    return m_instance;
+  }
+
+  /**
+   * @param types INITIALIZE, EXECUTE, INTERRUPT, FINISH
+   * @return the mask of the types
+   */
+  public static int mask(int... types) {
+    int mask = 0;
+    for (int type : types) {
+      mask |= 1 << type;
+    }
+    return mask;
+  }
+
+  /**
+   * Add a subscriber. Do this at startup - not while the robot is running.
+   *
+   * @param subscriber receives the events
+   * @param mask event types; see {@link #mask(int...)} and {@link #ALL}
+   * @param filter commands the subscriber wants or null for all; tested once per command
+   * @param batchSize 0 to receive each event as it happens in the scheduler or the number of
+   *     events to hold for the batch delivered by periodic()
+   * @return the subscriber's attachment slot in each CommandId
+   */
+  public int subscribe(Subscriber subscriber, int mask, Predicate<CommandId> filter, int batchSize) {
+    if (m_subscriptions.size() >= m_maxSubscribers) {
+      throw new IllegalArgumentException("Too many CommandEventBus subscribers; max " + m_maxSubscribers);
+    }
+    int slot = m_subscriptions.size();
+    m_subscriptions.add(new Subscription(subscriber, slot, mask, filter, batchSize));
+    return slot;
+  }
+
+  /**
+   * Change the event types of a subscriber.
+   *
+   * @param slot the subscriber's slot
+   * @param mask event types
+   */
+  public void setMask(int slot, int mask) {
+    m_subscriptions.get(slot).m_mask = mask;
+  }
+
+  /**
+   * Deliver the batches. Run every iteration after the scheduler - in runAfterCommands().
+   */
+  public void periodic() {
+    for (int i = 0; i < m_subscriptions.size(); i++) {
+      m_subscriptions.get(i).flush();
+    }
+  }
+
+  /**
+   * @param subsystem a subsystem
+   * @return bit of the subsystem in requirement masks - assigned the first time the subsystem is seen
+   */
+  public int getSubsystemBit(Subsystem subsystem) {
+    Integer bit = m_subsystemBits.get(subsystem);
+    if (bit == null) {
+      bit = Math.min(m_subsystemBits.size(), m_otherSubsystemsBit);
+      m_subsystemBits.put(subsystem, bit);
+      if (bit < m_otherSubsystemsBit) {
+        m_subsystemList.add(subsystem);
+      }
+    }
+    return bit;
+  }
+
+  /**
+   * @return number of subsystems seen with their own bit - the first 63
+   */
+  public int getSubsystemCount() {
+    return m_subsystemList.size();
+  }
+
+  /**
+   * @param bit 0 to getSubsystemCount() - 1
+   * @return the subsystem with that bit
+   */
+  public Subsystem getSubsystem(int bit) {
+    return m_subsystemList.get(bit);
+  }
+
+  /**
+   * @return number of commands seen
+   */
+  public int getCommandCount() {
+    return m_commandIdList.size();
+  }
+
+  /**
+   * @param id 0 to getCommandCount() - 1
+   * @return the command with that id
+   */
+  public CommandId getCommandId(int id) {
+    return m_commandIdList.get(id);
+  }
+
+  /**
+   * Get the CommandId of a command - created the first time the command is seen.
+   *
+   * @param command a command
+   * @return its id, names, and requirements
+   */
+  public CommandId commandId(Command command) {
+    return commandRun(command).m_id;
+  }
+
+  /**
+   * Get the run state of a command instance - created with its CommandId the first time the
+   * instance is seen.
+   */
+  private CommandRun commandRun(Command command) {
+    CommandRun run = m_commandRuns.get(command);
+    if (run == null) {
+      CommandId id;
+      // a profiled command is keyed as the command inside so profiling doesn't change the keys
+      String key = CommandProfiler.unwrap(command).getClass().getSimpleName() + "/" + command.getName();
+      StringBuilder requirements = new StringBuilder("{");
+      long requirementMask = 0;
+      Subsystem[] subsystems = command.getRequirements().toArray(new Subsystem[0]);
+      int[] subsystemBits = new int[subsystems.length];
+      for (int i = 0; i < subsystems.length; i++) {
+        if (requirements.length() > 1) {
+          requirements.append(", ");
+        }
+        requirements.append(subsystems[i].getClass().getSimpleName());
+        subsystemBits[i] = getSubsystemBit(subsystems[i]);
+        requirementMask |= 1L << subsystemBits[i];
+      }
+      requirements.append("}");
+
+      // different instances of the same subsystem class have the same name but not the same bits
+      String sharedKey = key + " " + requirements + " " + requirementMask;
+      id = m_commandIdsByKey.get(sharedKey);
+      if (id == null) {
+        id = new CommandId(m_commandIdList.size(), key, requirements.toString(), requirementMask,
+            subsystems, subsystemBits);
+        m_commandIdsByKey.put(sharedKey, id);
+        m_commandIdList.add(id);
+      }
+      run = new CommandRun(id);
+      m_commandRuns.put(command, run);
+    }
+    return run;
+  }
+
+  /**
+   * Fill the event once and hand it to each subscriber that wants it.
+   */
+  private void publish(int type, CommandRun run, CommandId interruptedBy) {
+    CommandId command = run.m_id;
+    int typeBit = 1 << type;
+    boolean filled = false;
+
+    for (int i = 0; i < m_subscriptions.size(); i++) {
+      Subscription subscription = m_subscriptions.get(i);
+      if ((subscription.m_mask & typeBit) == 0 || !wants(subscription, command)) {
+        continue;
+      }
+
+      if (!filled) {
+        m_event.m_type = type;
+        m_event.m_command = command;
+        m_event.m_interruptedBy = interruptedBy;
+        m_event.m_runs = run.m_runs;
+        m_event.m_timeUs = type == INITIALIZE ? run.m_startUs : RobotController.getFPGATime();
+        m_event.m_runStartUs = run.m_startUs;
+        filled = true;
+      }
+
+      if (subscription.m_batch == null) {
+        subscription.m_subscriber.onEvent(m_event);
+      } else {
+        if (subscription.m_batchCount == subscription.m_batch.length) {
+          subscription.flush(); // full so deliver early
+        }
+        subscription.m_batch[subscription.m_batchCount++].copy(m_event);
+      }
+    }
+  }
+
+  /**
+   * Test the subscriber's filter the first time the command is seen and remember the answer.
+   */
+  private static boolean wants(Subscription subscription, CommandId command) {
+    if (subscription.m_filter == null) {
+      return true;
+    }
+    long bit = 1L << subscription.m_slot;
+    if ((command.m_filterTested & bit) == 0) {
+      command.m_filterTested |= bit;
+      if (subscription.m_filter.test(command)) {
+        command.m_filterPassed |= bit;
+      }
+    }
+    return (command.m_filterPassed & bit) != 0;
+  }
+}
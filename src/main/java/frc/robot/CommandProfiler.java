@@ -0,0 +1,191 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.WrapperCommand;
+
+/**
+ * Time how long a command's initialize(), execute(), and end() take to find the commands that make
+ * the loop overrun instead of guessing.
+ *
+ * <p>Decorate a command with {@link #profile(Command)} where it's created. Profiling is off until
+ * {@link #setEnabled(boolean)} turns it on so the decorated command costs one boolean check when not
+ * in use. The {@link CommandEventBus} keys the decorated command by the class of the command inside
+ * so the log and metrics keys are the same with the profiler on or off.
+ *
+ * <p>Each command name has a profile of three {@link LatencyHistogram}s that are created when the
+ * command is decorated so nothing is allocated while the commands run. Commands with the same name
+ * share a profile.
+ *
+ * <p>Every {@value #m_publishPeriodUs} microseconds the median, 99th percentile and maximum (in
+ * microseconds) of each method are published to NT "Profile/command name/initialize", "execute",
+ * and "end" and the histograms are emptied for the next window.
+ *
+ * <p>Usage:
+<pre><code>
+  // in the command factory
+  return CommandProfiler.profile(run(() -> something()).withName("something"));
+
+  // in RobotContainer
+  CommandProfiler.setEnabled(true);
+  ...
+  CommandProfiler.publish(); // in runAfterCommands()
+</code></pre>
+ */
+public final class CommandProfiler {
+  private static final long m_publishPeriodUs = 1_000_000;
+  private static final double m_nsToUs = 1.e-3;
+  private static boolean m_enabled;
+  private static long m_nextPublishUs;
+  private static final HashMap<String, Profile> m_profiles = new HashMap<>();
+  private static final List<Profile> m_profileList = new ArrayList<>(); // iterate without an iterator
+  private static NetworkTable m_nt;
+
+  private CommandProfiler() {}
+
+  /**
+   * Histograms of the three command methods and their publishers
+   */
+  private static final class Profile {
+    private final LatencyHistogram m_initialize = new LatencyHistogram();
+    private final LatencyHistogram m_execute = new LatencyHistogram();
+    private final LatencyHistogram m_end = new LatencyHistogram();
+    private final DoubleArrayPublisher m_initializePublisher;
+    private final DoubleArrayPublisher m_executePublisher;
+    private final DoubleArrayPublisher m_endPublisher;
+    private final double[] m_summary = new double[3]; // reused for each publish
+
+    private Profile(String name) {
+      if (m_nt == null) {
+        m_nt = NetworkTableInstance.getDefault().getTable("Profile");
+      }
+      m_initializePublisher = m_nt.getDoubleArrayTopic(name + "/initialize").publish();
+      m_executePublisher = m_nt.getDoubleArrayTopic(name + "/execute").publish();
+      m_endPublisher = m_nt.getDoubleArrayTopic(name + "/end").publish();
+    }
+
+    private void publish(LatencyHistogram histogram, DoubleArrayPublisher publisher) {
+      if (histogram.count() == 0) {
+        return; // keep the last values of a command that didn't run this window
+      }
+      m_summary[0] = histogram.percentile(0.5) * m_nsToUs;
+      m_summary[1] = histogram.percentile(0.99) * m_nsToUs;
+      m_summary[2] = histogram.max() * m_nsToUs;
+      publisher.set(m_summary);
+      histogram.reset();
+    }
+  }
+
+  /**
+   * Turn profiling on or off for all profiled commands.
+   *
+   * @param enabled true to time the commands and publish the results
+   */
+  public static void setEnabled(boolean enabled) {
+    m_enabled = enabled;
+  }
+
+  /**
+   * Decorate a command to time its initialize(), execute(), and end() methods.
+   *
+   * <p>Name the command before decorating it - the name selects the profile.
+   *
+   * @param command the command to profile
+   * @return the command wrapped with the timing
+   */
+  public static Command profile(Command command) {
+    Profile profile = m_profiles.get(command.getName());
+    if (profile == null) {
+      profile = new Profile(command.getName());
+      m_profiles.put(command.getName(), profile);
+      m_profileList.add(profile);
+    }
+    return new ProfiledCommand(command, profile);
+  }
+
+  /**
+   * The command a profiled command decorates - for keys that shouldn't see the decoration
+   *
+   * @param command any command
+   * @return the command inside if it was decorated by {@link #profile(Command)}; else the command
+   */
+  static Command unwrap(Command command) {
+    return command instanceof ProfiledCommand ? ((ProfiledCommand) command).m_inner : command;
+  }
+
+  /**
+   * Publish the summaries if it's time and start new windows. Run periodically - in
+   * runAfterCommands().
+   */
+  public static void publish() {
+    if (!m_enabled) {
+      return;
+    }
+    long now = RobotController.getFPGATime();
+    if (now < m_nextPublishUs) {
+      return;
+    }
+    m_nextPublishUs = now + m_publishPeriodUs;
+
+    for (int i = 0; i < m_profileList.size(); i++) {
+      Profile profile = m_profileList.get(i);
+      profile.publish(profile.m_initialize, profile.m_initializePublisher);
+      profile.publish(profile.m_execute, profile.m_executePublisher);
+      profile.publish(profile.m_end, profile.m_endPublisher);
+    }
+  }
+
+  /**
+   * The timing wrapper. Name and other properties are those of the wrapped command.
+   */
+  private static final class ProfiledCommand extends WrapperCommand {
+    private final Profile m_profile;
+    private final Command m_inner; // m_command; kept here for unwrap()
+
+    private ProfiledCommand(Command command, Profile profile) {
+      super(command);
+      m_profile = profile;
+      m_inner = command;
+    }
+
+    @Override
+    public void initialize() {
+      if (!m_enabled) {
+        m_command.initialize();
+        return;
+      }
+      long start = System.nanoTime();
+      m_command.initialize();
+      m_profile.m_initialize.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void execute() {
+      if (!m_enabled) {
+        m_command.execute();
+        return;
+      }
+      long start = System.nanoTime();
+      m_command.execute();
+      m_profile.m_execute.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+      if (!m_enabled) {
+        m_command.end(interrupted);
+        return;
+      }
+      long start = System.nanoTime();
+      m_command.end(interrupted);
+      m_profile.m_end.record(System.nanoTime() - start);
+    }
+  }
+}
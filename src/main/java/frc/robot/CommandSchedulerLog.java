@@ -1,16 +1,26 @@
 package frc.robot;
 
 import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.IntegerPublisher;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StringEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.RawLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
 import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.shuffleboard.EventImportance;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
-import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Subsystem;
 
 import java.lang.invoke.MethodHandles;
-import java.util.HashMap;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
 
 /**
  * Log Command Scheduler actions for command initialize, execute, interrupt, finish
@@ -21,14 +31,15 @@ import java.util.stream.Collectors;
   private boolean useConsole            = false;
   private boolean useDataLog            = true;
   private boolean useShuffleBoardLog    = false;
+  private boolean useStructuredLog      = false;
 
   configureCommandLogs(); // do early on otherwise log not ready for first commands
 
   @SuppressWarnings("resource")
   public void configureCommandLogs()
   {
-      if (useConsole || useDataLog || useShuffleBoardLog) {
-        schedulerLog = new CommandSchedulerLog(useConsole, useDataLog, useShuffleBoardLog);
+      if (useConsole || useDataLog || useShuffleBoardLog || useStructuredLog) {
+        schedulerLog = new CommandSchedulerLog(useConsole, useDataLog, useShuffleBoardLog, useStructuredLog);
         schedulerLog.logCommandInitialize();
         schedulerLog.logCommandInterrupt();
         schedulerLog.logCommandFinish();
@@ -38,6 +49,52 @@ import java.util.stream.Collectors;
         new Alert("No logging", AlertType.kWarning).set(true);
       }
   }
+</code></pre>
+ *
+ * <p>The structured log writes each event directly to the DataLog as a small binary record in the
+ * "Commands/events" entry - little-endian:
+<pre><code>
+  byte  event type       EVENT_INITIALIZE, EVENT_EXECUTE, EVENT_INTERRUPT, EVENT_FINISH
+  int   command id       see "Commands/dictionary"
+  long  requirements     bit per subsystem; see "Commands/subsystems"
+  int   runs             execute count of the run at the time of the event
+  int   interrupter id   command id of the interrupting command or -1
+</code></pre>
+ * The timestamp is the DataLog record timestamp. Command names are written once to the
+ * "Commands/dictionary" entry as "id,class/name {requirements}" and subsystems once to
+ * "Commands/subsystems" as "bit,name".
+ *
+ * <p>Commands that start very often - the LED commands scheduled every iteration - would be most of
+ * the log. A command that initializes at least {@link #setSummarizeThreshold(int)} times in a
+ * window of {@value #m_summaryWindowUs} microseconds is summarized from the next window on: its
+ * events are counted but not logged individually, and one summary is logged per summarized window - "Commands/summary" in NT or the
+ * console and, in the structured log, a record in the "Commands/summary" entry - little-endian:
+<pre><code>
+  int   command id       see "Commands/dictionary"
+  int   initializes      in the window
+  int   finishes
+  int   interrupts
+  int   executes
+  int   interrupter id   command id of the last interrupting command in the window or -1
+</code></pre>
+ * The command is logged individually again after a window below the threshold. Run
+ * {@link #periodic()} every iteration to close the windows.
+ *
+ * <p>The events come from the {@link CommandEventBus} - the scheduler callbacks are shared with the
+ * other subscribers and the command names and requirements are resolved once by the bus.
+ *
+ * <p>Nothing is written in the scheduler. The bus events are put in a preallocated queue and a
+ * low priority log thread writes them in batches every {@value #m_drainPeriodMs} ms so a slow console
+ * or NT doesn't show up as a loop overrun. If the queue fills the events are dropped and counted in
+ * "Commands/dropped".
+ *
+ * <p>Only the first execute() of each run is logged unless the command has an execute sampling
+ * policy. Policies are selected by a regular expression of the "class/name" of the command and
+ * may be changed while the robot runs:
+<pre><code>
+  schedulerLog.setExecuteSampling("Moore-Like", ExecuteSampling.everyNth(25));
+  schedulerLog.setExecuteSampling("GroupDisjoint", ExecuteSampling.afterInterrupt(2.));
+  schedulerLog.setExecuteBudget(100.); // all sampled commands together
 </code></pre>
  */
 public class CommandSchedulerLog 
@@ -48,15 +105,166 @@ public class CommandSchedulerLog
         System.out.println("Loading: " + m_fullClassName);
     }
 
-    private final HashMap<String, Integer> m_currentCommands = new HashMap<String, Integer>();
+    /**
+     * Logging state of a command - in the command's attachment slot of the {@link CommandEventBus}.
+     */
+    private static final class CommandLogInfo
+    {
+        private final CommandEventBus.CommandId m_command; // id, names, requirements
+        private boolean m_inDictionary; // log thread only
+
+        // execute sampling; scheduler only
+        private ExecuteSampling m_sampling; // null is first execute only
+        private int m_samplingIndex; // of the policy's share of the budget
+        private int m_samplingGeneration = -1; // m_sampling is stale if not the current generation
+        private double m_samplingTokens; // maxPerSecond token bucket
+        private long m_samplingRefillUs;
+        private long m_captureUntilUs; // log every execute until this time
+
+        // activity in the current summary window; scheduler only
+        private int m_windowInitializes;
+        private int m_windowFinishes;
+        private int m_windowInterrupts;
+        private int m_windowExecutes;
+        private CommandLogInfo m_windowInterrupter; // last one
+        private boolean m_summarized; // events are only counted, not logged
+
+        // totals since the robot started; written by the scheduler, read by the metrics server
+        private volatile long m_totalInitializes;
+        private volatile long m_totalFinishes;
+        private volatile long m_totalInterrupts;
+        private volatile long m_totalExecutes;
+        private volatile long m_totalRunUs; // initialize to finish or interrupt
+        private volatile long m_maxRunUs;
+
+        private CommandLogInfo(CommandEventBus.CommandId command)
+        {
+            m_command = command;
+        }
+    }
+
+    /**
+     * How often to log execute() after the first one of a run. Create with the factories; the
+     * constructor combines them.
+     */
+    public static final class ExecuteSampling
+    {
+        private final int m_everyNth;
+        private final double m_maxPerSecond;
+        private final long m_afterInterruptUs;
+
+        /**
+         * A sampling policy. Zero turns off that part of the policy.
+         * 
+         * @param everyNth log every Nth execute() of a run
+         * @param maxPerSecond log no more than this many execute() per second for all runs of the command
+         * @param afterInterruptSeconds log every execute() for this long after the command is interrupted
+         */
+        public ExecuteSampling(int everyNth, double maxPerSecond, double afterInterruptSeconds)
+        {
+            if (everyNth < 0 || maxPerSecond < 0. || afterInterruptSeconds < 0.) {
+                throw new IllegalArgumentException("ExecuteSampling values can't be negative");
+            }
+            m_everyNth = everyNth;
+            m_maxPerSecond = maxPerSecond;
+            m_afterInterruptUs = (long) (afterInterruptSeconds * 1.e6);
+        }
+
+        /**
+         * @param n log every Nth execute() of a run
+         * @return the policy
+         */
+        public static ExecuteSampling everyNth(int n)
+        {
+            return new ExecuteSampling(n, 0., 0.);
+        }
+
+        /**
+         * @param k log every execute() but no more than k per second
+         * @return the policy
+         */
+        public static ExecuteSampling maxPerSecond(double k)
+        {
+            return new ExecuteSampling(1, k, 0.);
+        }
+
+        /**
+         * @param seconds log every execute() for this long after the command is interrupted
+         * @return the policy
+         */
+        public static ExecuteSampling afterInterrupt(double seconds)
+        {
+            return new ExecuteSampling(0, 0., seconds);
+        }
+    }
+
+    // execute sampling policies in the order added; the first match is used
+    private final List<Pattern> m_samplingPatterns = new ArrayList<>();
+    private final List<ExecuteSampling> m_samplingPolicies = new ArrayList<>();
+    private int m_samplingGeneration; // changes when the policies change
+    private double m_budgetPerSecond = 200.; // all sampled execute() together
+    private double[] m_budgetTokens = new double[0]; // each policy's equal share of the budget
+    private long[] m_budgetRefillUs = new long[0];
+    private volatile long m_overBudget; // sampled execute() not logged because of the budget
+    private long m_overBudgetReported; // log thread only
+
+    // structured log event types
+    public static final int EVENT_INITIALIZE = CommandEventBus.INITIALIZE;
+    public static final int EVENT_EXECUTE = CommandEventBus.EXECUTE;
+    public static final int EVENT_INTERRUPT = CommandEventBus.INTERRUPT;
+    public static final int EVENT_FINISH = CommandEventBus.FINISH;
+    public static final int EVENT_RECORD_SIZE = 1 + 4 + 8 + 4 + 4;
+    public static final int EVENT_SUMMARY = 4; // queue only; summaries have their own entry
+    public static final int SUMMARY_RECORD_SIZE = 6 * 4;
+
+    // summaries of the frequent commands
+    private static final long m_summaryWindowUs = 1_000_000;
+    private int m_summarizeThreshold = 10; // initializes per window; 0 is never summarize
+    private long m_windowEndUs;
+    // iterate without an iterator; copy on write so the metrics server can read it
+    private final List<CommandLogInfo> m_commandInfoList = new CopyOnWriteArrayList<>();
+
+    // queue from the scheduler to the log thread - single producer, single consumer
+    private static final int m_queueSize = 1024; // power of 2
+    private static final long m_drainPeriodMs = 20;
+    private final int[] m_queueType = new int[m_queueSize];
+    private final CommandLogInfo[] m_queueInfo = new CommandLogInfo[m_queueSize];
+    private final CommandLogInfo[] m_queueInterruptedBy = new CommandLogInfo[m_queueSize];
+    private final int[] m_queueRuns = new int[m_queueSize]; // executes for a summary
+    private final int[] m_queueInitializes = new int[m_queueSize]; // summary only
+    private final int[] m_queueFinishes = new int[m_queueSize]; // summary only
+    private final int[] m_queueInterrupts = new int[m_queueSize]; // summary only
+    private final long[] m_queueTime = new long[m_queueSize];
+    private volatile long m_head; // next slot to fill; written by the scheduler
+    private volatile long m_tail; // next slot to write; written by the log thread
+    private volatile long m_dropped; // written by the scheduler
+    private long m_droppedReported; // log thread only
+    private final StringBuilder m_consoleBatch = new StringBuilder(); // log thread only
+    private final IdentityHashMap<Subsystem, Boolean> m_subsystemsInDictionary = new IdentityHashMap<>(); // log thread only
+
+    private final CommandEventBus m_bus = CommandEventBus.getInstance();
+    private final int m_slot; // attachment slot of the CommandLogInfo in each CommandId
+    private int m_mask; // event types logged
     private final NetworkTable m_nt;    
     private final StringEntry m_initializeCommandLogEntry;
     private final StringEntry m_interruptCommandLogEntry;
     private final StringEntry m_finishCommandLogEntry;
     private final StringEntry m_executeCommandLogEntry;
+    private final StringEntry m_summaryCommandLogEntry;
+    private final IntegerPublisher m_droppedPublisher;
+    private final IntegerPublisher m_overBudgetPublisher;
     private final boolean m_useConsole;
     private final boolean m_useDataLog;
     private final boolean m_useShuffleBoardLog;
+    private final boolean m_useStructuredLog;
+    private RawLogEntry m_eventLogEntry;
+    private StringLogEntry m_dictionaryLogEntry;
+    private StringLogEntry m_subsystemLogEntry;
+    private RawLogEntry m_summaryLogEntry;
+    private final byte[] m_summaryRecord = new byte[SUMMARY_RECORD_SIZE];
+    private final ByteBuffer m_summaryRecordBuffer = ByteBuffer.wrap(m_summaryRecord).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] m_eventRecord = new byte[EVENT_RECORD_SIZE];
+    private final ByteBuffer m_eventRecordBuffer = ByteBuffer.wrap(m_eventRecord).order(ByteOrder.LITTLE_ENDIAN);
 
     /**
      * Command Event Loggers
@@ -72,20 +280,40 @@ public class CommandSchedulerLog
      * Run DataLog tool to retrieve log from roboRIO and convert the log to a csv table that may be
      * viewed nicely in Excel.
      * 
-     * <p>Note the comment in execute logging that only the first execute is logged unless changed.
+     * <p>Note the comment in execute logging that only the first execute is logged unless sampled.
      * 
      * <p>Note that use of the DataLog creates SmartDashboard/ShuffleBoard entries but are not the same
      * as use of the ShuffleBoardLog. The ShuffleBoardLog has event markers independent of the DataLog.
      * 
+     * <p>The structured log writes compact binary records directly to the DataLog without NT so
+     * only the command events are logged and not everything else in NT. It's much smaller and
+     * cheaper than the strings but needs the dictionary to be read (see the class comment).
+     * 
+     * <p>All logs are written by a daemon thread; see the class comment.
+     * 
      * @param useConsole
      * @param useDataLog
      * @param useShuffleBoardLog
+     * @param useStructuredLog
      */ 
-    CommandSchedulerLog(boolean useConsole, boolean useDataLog, boolean useShuffleBoardLog)
+    CommandSchedulerLog(boolean useConsole, boolean useDataLog, boolean useShuffleBoardLog, boolean useStructuredLog)
     {
         m_useConsole = useConsole;
         m_useDataLog = useDataLog;
         m_useShuffleBoardLog = useShuffleBoardLog;
+        m_useStructuredLog = useStructuredLog;
+
+        // DataLog directly without NT
+        if (useStructuredLog) {
+            DataLog log = DataLogManager.getLog();
+            m_eventLogEntry = new RawLogEntry(log, "Commands/events",
+                "{\"layout\":\"type:u8,id:i32,requirements:i64,runs:i32,interrupter:i32\"}", "CommandEvent");
+            m_dictionaryLogEntry = new StringLogEntry(log, "Commands/dictionary");
+            m_subsystemLogEntry = new StringLogEntry(log, "Commands/subsystems");
+            m_summaryLogEntry = new RawLogEntry(log, "Commands/summary",
+                "{\"layout\":\"id:i32,initializes:i32,finishes:i32,interrupts:i32,executes:i32,interrupter:i32\"}",
+                "CommandSummary");
+        }
 
         // DataLog via NT so establish NT and the connection to DataLog
         if (useDataLog) {
@@ -98,6 +326,18 @@ public class CommandSchedulerLog
         m_interruptCommandLogEntry = m_nt.getStringTopic("Commands/interrupt").getEntry("");
         m_finishCommandLogEntry = m_nt.getStringTopic("Commands/finish").getEntry("");
         m_executeCommandLogEntry = m_nt.getStringTopic("Commands/execute").getEntry("");        
+        m_summaryCommandLogEntry = m_nt.getStringTopic("Commands/summary").getEntry("");
+        m_droppedPublisher = m_nt.getIntegerTopic("Commands/dropped").publish();
+        m_droppedPublisher.set(0);
+        m_overBudgetPublisher = m_nt.getIntegerTopic("Commands/overBudget").publish();
+        m_overBudgetPublisher.set(0);
+
+        m_slot = m_bus.subscribe(this::onEvent, 0, null, 0); // events are enabled by the logCommand methods
+
+        Thread logThread = new Thread(this::drainLoop, "CommandSchedulerLog");
+        logThread.setDaemon(true);
+        logThread.setPriority(Thread.MIN_PRIORITY);
+        logThread.start();
     }
 
     /**
@@ -105,125 +345,695 @@ public class CommandSchedulerLog
      */
     public void logCommandInitialize()
     {
-        CommandScheduler.getInstance().onCommandInitialize(
-            (command) -> 
-            {
-                String key = command.getClass().getSimpleName() + "/" + command.getName();
-                String requirements = command.getRequirements().stream()
-                    .map(subsystem -> subsystem.getClass().getSimpleName())
-                    .collect(Collectors.joining(", ", "{", "}"));
+        enable(EVENT_INITIALIZE);
+    }
 
-                if (m_useConsole) {
-                    System.out.println("Command initialized : " + key + " " + requirements);                    
+    /**
+     * Log commands that have been interrupted.
+     */
+    public void logCommandInterrupt()
+    {
+        enable(EVENT_INTERRUPT);
+    }
+
+    /**
+     * Log commands that run the finish method.
+     */
+    public void logCommandFinish()
+    {
+        enable(EVENT_FINISH);
+    }
+
+    /**
+     * Log commands that run the execute() method.
+     * 
+     * <p>This can generate a lot of events so logging is suppressed except for the first
+     * occurrence of execute(). Total count of execute() is logged at command end.
+     * 
+     * <p>Counting the other executes doesn't allocate - the command information is looked up by
+     * identity and the count is a primitive.
+     * 
+     * <p>Use {@link #setExecuteSampling(String, ExecuteSampling)} to log more of the execute() of
+     * the commands being debugged.
+     */
+    public void logCommandExecute()
+    {
+        enable(EVENT_EXECUTE);
+    }
+
+    private void enable(int eventType)
+    {
+        m_mask |= CommandEventBus.mask(eventType);
+        m_bus.setMask(m_slot, m_mask);
+    }
+
+    /**
+     * Receive an event from the bus - runs in the scheduler. Counts it for the summary window and
+     * queues it for the log thread unless the command is summarized.
+     * 
+     * @param event the event
+     */
+    private void onEvent(CommandEventBus.CommandEvent event)
+    {
+        CommandLogInfo info = info(event.getCommand());
+        int runs = event.getRuns();
+
+        switch (event.getType()) {
+            case EVENT_INITIALIZE:
+                info.m_windowInitializes++;
+                info.m_totalInitializes = info.m_totalInitializes + 1; // single writer
+                if (!info.m_summarized) {
+                    offer(EVENT_INITIALIZE, info, null, runs);
                 }
-                if (m_useDataLog) {
-                    m_initializeCommandLogEntry.set(key + " " + requirements);                    
+                break;
+
+            case EVENT_EXECUTE:
+                info.m_windowExecutes++;
+                info.m_totalExecutes = info.m_totalExecutes + 1;
+                if (info.m_summarized) {
+                    break; // counted for the summary
                 }
-                if (m_useShuffleBoardLog) {
-                    Shuffleboard.addEventMarker("Command initialized",
-                        key + " " + requirements, EventImportance.kNormal);                    
+                if (runs == 1) // suppress all but first execute unless sampled
+                {
+                    offer(EVENT_EXECUTE, info, null, runs);
                 }
+                else if (sampling(info) != null && sample(info, runs, event.getTimeUs())) {
+                    offer(EVENT_EXECUTE, info, null, runs);
+                }
+                break;
+
+            case EVENT_INTERRUPT:
+                CommandLogInfo interruptedByInfo = event.getInterruptedBy() != null ? info(event.getInterruptedBy()) : null;
+                captureAfterInterrupt(info, event.getTimeUs());
+                if (interruptedByInfo != null) {
+                    captureAfterInterrupt(interruptedByInfo, event.getTimeUs()); // what happened next
+                }
+                info.m_windowInterrupts++;
+                info.m_totalInterrupts = info.m_totalInterrupts + 1;
+                endRun(info, event);
+                info.m_windowInterrupter = interruptedByInfo != null ? interruptedByInfo : info.m_windowInterrupter;
+                if (!info.m_summarized) {
+                    offer(EVENT_INTERRUPT, info, interruptedByInfo, runs);
+                }
+                break;
+
+            case EVENT_FINISH:
+                info.m_windowFinishes++;
+                info.m_totalFinishes = info.m_totalFinishes + 1;
+                endRun(info, event);
+                if (!info.m_summarized) {
+                    offer(EVENT_FINISH, info, null, runs);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
 
-                m_currentCommands.put(key, 0);
+    /**
+     * Add a run's duration to the command's totals. The start is the command instance's own - the
+     * bus keeps it - so instances sharing the command's id don't time each other's runs. Runs that
+     * started before the bus saw them aren't timed.
+     * 
+     * @param info the command
+     * @param event the finish or interrupt
+     */
+    private void endRun(CommandLogInfo info, CommandEventBus.CommandEvent event)
+    {
+        long startUs = event.getRunStartUs();
+        if (startUs == 0) {
+            return;
+        }
+        long runUs = event.getTimeUs() - startUs;
+        info.m_totalRunUs = info.m_totalRunUs + runUs;
+        if (runUs > info.m_maxRunUs) {
+            info.m_maxRunUs = runUs;
+        }
+    }
+
+    /**
+     * Write the command totals and the dropped events for the {@link MetricsServer}. Safe to call
+     * from another thread - the totals are volatile and only written by the scheduler.
+     * 
+     * <p>Only the event types being logged are counted; run times need finish or interrupt.
+     * 
+     * @param out the metrics text
+     */
+    public void writeMetrics(StringBuilder out)
+    {
+        MetricsServer.header(out, "robot_command_events_total", "counter", "Command events by command and event");
+        for (int i = 0; i < m_commandInfoList.size(); i++) {
+            CommandLogInfo info = m_commandInfoList.get(i);
+            writeCommandMetric(out, "robot_command_events_total", info, "initialize").append(info.m_totalInitializes).append('\n');
+            writeCommandMetric(out, "robot_command_events_total", info, "execute").append(info.m_totalExecutes).append('\n');
+            writeCommandMetric(out, "robot_command_events_total", info, "interrupt").append(info.m_totalInterrupts).append('\n');
+            writeCommandMetric(out, "robot_command_events_total", info, "finish").append(info.m_totalFinishes).append('\n');
+        }
+        MetricsServer.header(out, "robot_command_run_seconds_total", "counter", "Time commands ran, initialize to end");
+        for (int i = 0; i < m_commandInfoList.size(); i++) {
+            CommandLogInfo info = m_commandInfoList.get(i);
+            writeCommandMetric(out, "robot_command_run_seconds_total", info, null).append(info.m_totalRunUs * 1.e-6).append('\n');
+        }
+        MetricsServer.header(out, "robot_command_run_max_seconds", "gauge", "Longest run of the command");
+        for (int i = 0; i < m_commandInfoList.size(); i++) {
+            CommandLogInfo info = m_commandInfoList.get(i);
+            writeCommandMetric(out, "robot_command_run_max_seconds", info, null).append(info.m_maxRunUs * 1.e-6).append('\n');
+        }
+        MetricsServer.header(out, "robot_command_log_dropped_total", "counter", "Command events dropped by the full log queue");
+        out.append("robot_command_log_dropped_total ").append(m_dropped).append('\n');
+    }
+
+    private static StringBuilder writeCommandMetric(StringBuilder out, String name, CommandLogInfo info, String event)
+    {
+        out.append(name).append("{command=\"");
+        MetricsServer.label(out, info.m_command.getKeyRequirements());
+        if (event != null) {
+            out.append("\",event=\"").append(event);
+        }
+        return out.append("\"} ");
+    }
+
+    /**
+     * Close the summary window if it's time. Queues a summary of each command that initialized at
+     * least the threshold times in the window and decides which commands are summarized in the next
+     * window. Run every iteration - in runAfterCommands().
+     */
+    public void periodic()
+    {
+        long now = RobotController.getFPGATime();
+        if (now < m_windowEndUs) {
+            return;
+        }
+        m_windowEndUs = now + m_summaryWindowUs;
+
+        for (int i = 0; i < m_commandInfoList.size(); i++) {
+            CommandLogInfo info = m_commandInfoList.get(i);
+            // only a window that was summarized gets a summary - the events of the window in which
+            // a command becomes frequent were logged one by one and counting them again would double
+            if (info.m_summarized) {
+                offerSummary(info);
             }
-        );
+            info.m_summarized = m_summarizeThreshold > 0 && info.m_windowInitializes >= m_summarizeThreshold;
+            // every command starts the next window at 0 - a long running command (a default command)
+            // has executes but no initializes in most windows
+            info.m_windowInitializes = 0;
+            info.m_windowFinishes = 0;
+            info.m_windowInterrupts = 0;
+            info.m_windowExecutes = 0;
+            info.m_windowInterrupter = null;
+        }
     }
 
     /**
-     * Log commands that have been interrupted.
+     * Commands that initialize at least this many times in a summary window are summarized in the
+     * next window instead of logging each event.
+     * 
+     * @param initializesPerWindow threshold; 0 to never summarize; default 10
      */
-    public void logCommandInterrupt()
+    public void setSummarizeThreshold(int initializesPerWindow)
+    {
+        m_summarizeThreshold = initializesPerWindow;
+    }
+
+    /**
+     * Log more than the first execute() of the commands with the "class/name" matching the pattern.
+     * Replaces the policy of the same pattern. Call from the robot thread - a command or in
+     * runBeforeCommands() - not from another thread.
+     * 
+     * @param pattern regular expression found in the "class/name" of the commands
+     * @param sampling the policy or null to remove the pattern's policy
+     */
+    public void setExecuteSampling(String pattern, ExecuteSampling sampling)
+    {
+        int index = -1;
+        for (int i = 0; i < m_samplingPatterns.size(); i++) {
+            if (m_samplingPatterns.get(i).pattern().equals(pattern)) {
+                index = i;
+            }
+        }
+
+        if (sampling == null) {
+            if (index >= 0) {
+                m_samplingPatterns.remove(index);
+                m_samplingPolicies.remove(index);
+            }
+        }
+        else if (index >= 0) {
+            m_samplingPolicies.set(index, sampling); // keeps its place in the order
+        }
+        else {
+            m_samplingPatterns.add(Pattern.compile(pattern));
+            m_samplingPolicies.add(sampling);
+        }
+        m_samplingGeneration++; // commands find their policy again on their next execute()
+        resizeBudget();
+    }
+
+    /**
+     * Split the budget equally among the policies so a busy policy can't use the share of another.
+     */
+    private void resizeBudget()
+    {
+        int policies = m_samplingPolicies.size();
+        m_budgetTokens = new double[policies];
+        m_budgetRefillUs = new long[policies];
+        for (int i = 0; i < policies; i++) {
+            m_budgetTokens[i] = budgetShare();
+        }
+    }
+
+    /**
+     * @return sampled execute() per second of each policy
+     */
+    private double budgetShare()
+    {
+        return m_samplingPolicies.isEmpty() ? 0. : m_budgetPerSecond / m_samplingPolicies.size();
+    }
+
+    /**
+     * Limit the sampled execute() of all commands together. Samples over the budget aren't logged
+     * but are counted in "Commands/overBudget". First execute() of each run is always logged.
+     * 
+     * <p>Each policy gets an equal share of the budget for all the commands it matches so a policy
+     * that matches a busy command doesn't starve the others.
+     * 
+     * @param eventsPerSecond sampled execute() per second; default 200
+     */
+    public void setExecuteBudget(double eventsPerSecond)
+    {
+        m_budgetPerSecond = eventsPerSecond;
+        double share = budgetShare();
+        for (int i = 0; i < m_budgetTokens.length; i++) {
+            m_budgetTokens[i] = Math.min(m_budgetTokens[i], share);
+        }
+    }
+
+    /**
+     * Log every execute() of a command for a while if its policy asks for it after an interrupt -
+     * both the interrupted command and the command that interrupted it.
+     * 
+     * @param info the command
+     * @param now FPGA time of the interrupt in microseconds
+     */
+    private void captureAfterInterrupt(CommandLogInfo info, long now)
+    {
+        ExecuteSampling sampling = sampling(info);
+        if (sampling != null && sampling.m_afterInterruptUs > 0) {
+            info.m_captureUntilUs = now + sampling.m_afterInterruptUs;
+        }
+    }
+
+    /**
+     * Get the sampling policy of a command. Matching is done once per command and again only if the
+     * policies change.
+     * 
+     * @param info the command
+     * @return the policy or null for first execute only
+     */
+    private ExecuteSampling sampling(CommandLogInfo info)
+    {
+        if (info.m_samplingGeneration != m_samplingGeneration) {
+            info.m_samplingGeneration = m_samplingGeneration;
+            info.m_sampling = null;
+            for (int i = 0; i < m_samplingPatterns.size(); i++) {
+                if (m_samplingPatterns.get(i).matcher(info.m_command.getKey()).find()) {
+                    info.m_sampling = m_samplingPolicies.get(i);
+                    info.m_samplingIndex = i;
+                    info.m_samplingTokens = info.m_sampling.m_maxPerSecond;
+                    break;
+                }
+            }
+        }
+        return info.m_sampling;
+    }
+
+    /**
+     * Decide if this execute() is logged by the command's policy and the policy's share of the budget.
+     * 
+     * @param info the command with a sampling policy
+     * @param runs execute count of the run
+     * @param now FPGA time of the execute() in microseconds
+     * @return true to log this execute()
+     */
+    private boolean sample(CommandLogInfo info, int runs, long now)
+    {
+        ExecuteSampling sampling = info.m_sampling;
+
+        boolean selected = now < info.m_captureUntilUs
+            || (sampling.m_everyNth > 0 && runs % sampling.m_everyNth == 0);
+        if (!selected) {
+            return false;
+        }
+
+        if (sampling.m_maxPerSecond > 0.) {
+            info.m_samplingTokens = Math.min(sampling.m_maxPerSecond,
+                info.m_samplingTokens + (now - info.m_samplingRefillUs) * 1.e-6 * sampling.m_maxPerSecond);
+            info.m_samplingRefillUs = now;
+            if (info.m_samplingTokens < 1.) {
+                return false;
+            }
+            info.m_samplingTokens -= 1.;
+        }
+
+        int share = info.m_samplingIndex;
+        double perSecond = budgetShare();
+        m_budgetTokens[share] = Math.min(perSecond,
+            m_budgetTokens[share] + (now - m_budgetRefillUs[share]) * 1.e-6 * perSecond);
+        m_budgetRefillUs[share] = now;
+        if (m_budgetTokens[share] < 1.) {
+            m_overBudget++;
+            return false;
+        }
+        m_budgetTokens[share] -= 1.;
+        return true;
+    }
+
+    /**
+     * Get the number of events that were not logged because the queue to the log thread was full.
+     * 
+     * @return count of dropped events since the robot started
+     */
+    public long getDropped()
+    {
+        return m_dropped;
+    }
+
+    /**
+     * Put an event in the queue to the log thread. Runs in the scheduler so only primitives and
+     * references are copied into the preallocated queue - nothing is allocated or written here.
+     * 
+     * <p>If the log thread has fallen behind and the queue is full the event is dropped and counted.
+     * 
+     * @param eventType EVENT_INITIALIZE, EVENT_EXECUTE, EVENT_INTERRUPT, or EVENT_FINISH
+     * @param info the command
+     * @param interruptedBy the interrupting command or null
+     * @param runs execute count of the run
+     */
+    private void offer(int eventType, CommandLogInfo info, CommandLogInfo interruptedBy, int runs)
+    {
+        long head = m_head;
+        if (head - m_tail >= m_queueSize) {
+            m_dropped++;
+            return;
+        }
+        int slot = (int) head & (m_queueSize - 1);
+        m_queueType[slot] = eventType;
+        m_queueInfo[slot] = info;
+        m_queueInterruptedBy[slot] = interruptedBy;
+        m_queueRuns[slot] = runs;
+        m_queueTime[slot] = RobotController.getFPGATime();
+        m_head = head + 1; // volatile write publishes the slot to the log thread
+    }
+
+    /**
+     * Put a summary of a command's window in the queue to the log thread.
+     * 
+     * @param info the command
+     */
+    private void offerSummary(CommandLogInfo info)
+    {
+        long head = m_head;
+        if (head - m_tail >= m_queueSize) {
+            m_dropped++;
+            return;
+        }
+        int slot = (int) head & (m_queueSize - 1);
+        m_queueType[slot] = EVENT_SUMMARY;
+        m_queueInfo[slot] = info;
+        m_queueInterruptedBy[slot] = info.m_windowInterrupter;
+        m_queueRuns[slot] = info.m_windowExecutes;
+        m_queueInitializes[slot] = info.m_windowInitializes;
+        m_queueFinishes[slot] = info.m_windowFinishes;
+        m_queueInterrupts[slot] = info.m_windowInterrupts;
+        m_queueTime[slot] = RobotController.getFPGATime();
+        m_head = head + 1; // volatile write publishes the slot to the log thread
+    }
+
+    /**
+     * Log thread - drain the queue every so often and write the events in batches so the scheduler
+     * never waits for the console, NT, ShuffleBoard, or the DataLog.
+     */
+    private void drainLoop()
     {
-        CommandScheduler.getInstance().onCommandInterrupt(
-            (command, interruptedBy) ->
-            {
+        while (!Thread.currentThread().isInterrupted()) {
+            drain();
+            try {
+                Thread.sleep(m_drainPeriodMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Write all the queued events. Console output is collected and printed once per batch.
+     */
+    private void drain()
+    {
+        long tail = m_tail;
+        long head = m_head;
+        if (tail == head && m_dropped == m_droppedReported && m_overBudget == m_overBudgetReported) {
+            return;
+        }
+
+        m_consoleBatch.setLength(0);
+        for (; tail < head; tail++) {
+            int slot = (int) tail & (m_queueSize - 1);
+            CommandLogInfo info = m_queueInfo[slot];
+            CommandLogInfo interruptedBy = m_queueInterruptedBy[slot];
+            if (m_queueType[slot] == EVENT_SUMMARY) {
+                writeSummary(info, interruptedBy, m_queueInitializes[slot], m_queueFinishes[slot],
+                    m_queueInterrupts[slot], m_queueRuns[slot], m_queueTime[slot]);
+            }
+            else {
+                write(m_queueType[slot], info, interruptedBy, m_queueRuns[slot], m_queueTime[slot]);
+            }
+            m_queueInfo[slot] = null; // don't hold on to the commands
+            m_queueInterruptedBy[slot] = null;
+            m_tail = tail + 1; // volatile write releases the slot to the scheduler
+        }
+
+        long dropped = m_dropped;
+        if (dropped != m_droppedReported) {
+            m_droppedReported = dropped;
+            m_droppedPublisher.set(dropped);
+            if (m_useConsole) {
+                m_consoleBatch.append("Command log dropped ").append(dropped).append(" events\n");
+            }
+        }
+
+        long overBudget = m_overBudget;
+        if (overBudget != m_overBudgetReported) {
+            m_overBudgetReported = overBudget;
+            m_overBudgetPublisher.set(overBudget);
+        }
+
+        if (m_consoleBatch.length() > 0) {
+            System.out.print(m_consoleBatch);
+        }
+    }
+
+    /**
+     * Write one event to each log in use. Runs in the log thread.
+     * 
+     * @param eventType EVENT_INITIALIZE, EVENT_EXECUTE, EVENT_INTERRUPT, or EVENT_FINISH
+     * @param info the command
+     * @param interruptedBy the interrupting command or null
+     * @param runs execute count at the time of the event
+     * @param time FPGA time of the event in microseconds
+     */
+    private void write(int eventType, CommandLogInfo info, CommandLogInfo interruptedBy, int runs, long time)
+    {
+        if (m_useStructuredLog) {
+            logEvent(eventType, info, interruptedBy, runs, time);
+        }
+
+        if (!(m_useConsole || m_useDataLog || m_useShuffleBoardLog)) {
+            return; // skip making the strings
+        }
+
+        switch (eventType) {
+            case EVENT_INITIALIZE:
+                if (m_useConsole) {
+                    m_consoleBatch.append("Command initialized : ").append(info.m_command.getKeyRequirements()).append('\n');
+                }
+                if (m_useDataLog) {
+                    m_initializeCommandLogEntry.set(info.m_command.getKeyRequirements(), time);
+                }
+                if (m_useShuffleBoardLog) {
+                    Shuffleboard.addEventMarker("Command initialized",
+                        info.m_command.getKeyRequirements(), EventImportance.kNormal);                    
+                }
+                break;
+
+            case EVENT_EXECUTE:
+                String executed = runs > 1 ? info.m_command.getKey() + " execute " + runs : info.m_command.getKey(); // sampled are numbered
+
+                if (m_useConsole) {
+                    m_consoleBatch.append("Command executed : ").append(executed).append('\n');
+                }
+                if (m_useDataLog) {
+                    m_executeCommandLogEntry.set(executed, time);
+                }
+                if (m_useShuffleBoardLog) {
+                    Shuffleboard.addEventMarker("Command executed", executed, EventImportance.kNormal);                        
+                }
+                break;
+
+            case EVENT_INTERRUPT:
                 String interrupter;
-                if (interruptedBy.isPresent()) {
+                if (interruptedBy != null) {
                     interrupter =  
-                        "interrupted by command " + command.getClass().getSimpleName() + "/" + interruptedBy.get().getName();
+                        "interrupted by command " + interruptedBy.m_command.getKey();
                 }
                 else {
                     interrupter = 
                         "interrupted"; // interrupted not by a command - mode change, cancelled, timeOut, until, etc.
                 }
 
-                String key = command.getClass().getSimpleName() + "/" + command.getName();
-                String runs = " after " + m_currentCommands.getOrDefault(key, 0) + " runs " + interrupter;
+                String interruptedRuns = " after " + runs + " runs " + interrupter;
 
                 if (m_useConsole) {
-                    System.out.println(key + runs);                    
+                    m_consoleBatch.append(info.m_command.getKey()).append(interruptedRuns).append('\n');
                 }
                 if (m_useDataLog) {
-                    m_interruptCommandLogEntry.set(key + runs);                    
+                    m_interruptCommandLogEntry.set(info.m_command.getKey() + interruptedRuns, time);
                 } 
                 if (m_useShuffleBoardLog) {
-                    Shuffleboard.addEventMarker("Command interrupted", key + runs, EventImportance.kNormal);
+                    Shuffleboard.addEventMarker("Command interrupted", info.m_command.getKey() + interruptedRuns, EventImportance.kNormal);
                 }
+                break;
 
-                m_currentCommands.put(key, 0);
-            }
-        );
-    }
-
-    /**
-     * Log commands that run the finish method.
-     */
-    public void logCommandFinish()
-    {
-        CommandScheduler.getInstance().onCommandFinish(
-            (command) ->
-            {
-                String key = command.getClass().getSimpleName() + "/" + command.getName();
-                String runs = " after " + m_currentCommands.getOrDefault(key, 0) + " runs";
+            case EVENT_FINISH:
+                String finishedRuns = " after " + runs + " runs";
 
                 if (m_useConsole) {
-                    System.out.println("Command finished : " + key + runs);                    
+                    m_consoleBatch.append("Command finished : ").append(info.m_command.getKey()).append(finishedRuns).append('\n');
                 }
                 if (m_useDataLog) {
-                    m_finishCommandLogEntry.set(key + runs);                    
+                    m_finishCommandLogEntry.set(info.m_command.getKey() + finishedRuns, time);
                 } 
                 if (m_useShuffleBoardLog) {
-                    Shuffleboard.addEventMarker("Command finished", key, EventImportance.kNormal);                    
+                    Shuffleboard.addEventMarker("Command finished", info.m_command.getKey(), EventImportance.kNormal);                    
                 }
+                break;
 
-                m_currentCommands.put(key, 0);
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Write the summary of one window of a command to each log in use. Runs in the log thread.
+     * 
+     * @param info the command
+     * @param interruptedBy the last interrupting command of the window or null
+     * @param initializes count in the window
+     * @param finishes count in the window
+     * @param interrupts count in the window
+     * @param executes count in the window
+     * @param time FPGA time of the end of the window in microseconds
+     */
+    private void writeSummary(CommandLogInfo info, CommandLogInfo interruptedBy,
+        int initializes, int finishes, int interrupts, int executes, long time)
+    {
+        if (m_useStructuredLog) {
+            logDictionary(info);
+            if (interruptedBy != null) {
+                logDictionary(interruptedBy);
             }
-        );
+            m_summaryRecordBuffer.clear();
+            m_summaryRecordBuffer.putInt(info.m_command.getId());
+            m_summaryRecordBuffer.putInt(initializes);
+            m_summaryRecordBuffer.putInt(finishes);
+            m_summaryRecordBuffer.putInt(interrupts);
+            m_summaryRecordBuffer.putInt(executes);
+            m_summaryRecordBuffer.putInt(interruptedBy != null ? interruptedBy.m_command.getId() : -1);
+            m_summaryLogEntry.append(m_summaryRecord, time);
+        }
+
+        if (!(m_useConsole || m_useDataLog || m_useShuffleBoardLog)) {
+            return; // skip making the strings
+        }
+
+        String summary = info.m_command.getKey() + " " + initializes + " initialized, " + finishes + " finished, "
+            + interrupts + " interrupted, " + executes + " executes"
+            + (interruptedBy != null ? ", last interrupted by command " + interruptedBy.m_command.getKey() : "");
+
+        if (m_useConsole) {
+            m_consoleBatch.append("Command summary : ").append(summary).append('\n');
+        }
+        if (m_useDataLog) {
+            m_summaryCommandLogEntry.set(summary, time);
+        }
+        if (m_useShuffleBoardLog) {
+            Shuffleboard.addEventMarker("Command summary", summary, EventImportance.kNormal);
+        }
     }
 
     /**
-     * Log commands that run the execute() method.
+     * Get the logging state of a command - created the first time the command is logged.
      * 
-     * <p>This can generate a lot of events so logging is suppressed except for the first
-     * occurrence of execute(). Total count of execute() is logged at command end.
+     * @param command the command being logged
+     * @return logging state of the command
+     */
+    private CommandLogInfo info(CommandEventBus.CommandId command)
+    {
+        CommandLogInfo info = (CommandLogInfo) command.getAttachment(m_slot);
+        if (info == null) {
+            info = new CommandLogInfo(command);
+            command.setAttachment(m_slot, info);
+            m_commandInfoList.add(info);
+        }
+        return info;
+    }
+
+    /**
+     * Write a binary event record to the DataLog. The record buffer is reused. The dictionary entries
+     * of the commands are written the first time they are seen. Runs in the log thread.
      * 
-     * <p>Recompile without the if/else to get all execute() logged.
+     * @param eventType EVENT_INITIALIZE, EVENT_EXECUTE, EVENT_INTERRUPT, or EVENT_FINISH
+     * @param info the command
+     * @param interruptedBy the interrupting command or null
+     * @param runs execute count at the time of the event
+     * @param time FPGA time of the event in microseconds
      */
-    public void logCommandExecute()
+    private void logEvent(int eventType, CommandLogInfo info, CommandLogInfo interruptedBy, int runs, long time)
     {
-        CommandScheduler.getInstance().onCommandExecute(
-            (command) ->
-            {
-                String key = command.getClass().getSimpleName() + "/" + command.getName();
+        logDictionary(info);
+        if (interruptedBy != null) {
+            logDictionary(interruptedBy);
+        }
 
-                if (m_currentCommands.getOrDefault(key, 0) == 0) // suppress all but first execute
-                {
-                    if (m_useConsole) {
-                        System.out.println("Command executed : " + key);                        
-                    }
-                    if (m_useDataLog) {
-                        m_executeCommandLogEntry.set(key);             
-                    }
-                    if (m_useShuffleBoardLog) {
-                        Shuffleboard.addEventMarker("Command executed", key, EventImportance.kNormal);                        
-                    }
-
-                    m_currentCommands.put(key, 1); // first time through count is 1
-                }
-                else
-                    // Increment total count to log when the command ends.
-                    m_currentCommands.put(key, m_currentCommands.get(key) + 1);
+        m_eventRecordBuffer.clear();
+        m_eventRecordBuffer.put((byte) eventType);
+        m_eventRecordBuffer.putInt(info.m_command.getId());
+        m_eventRecordBuffer.putLong(info.m_command.getRequirementMask());
+        m_eventRecordBuffer.putInt(runs);
+        m_eventRecordBuffer.putInt(interruptedBy != null ? interruptedBy.m_command.getId() : -1);
+        m_eventLogEntry.append(m_eventRecord, time);
+    }
+
+    /**
+     * Write the dictionary entries of a command and its subsystems if not already written.
+     * Runs in the log thread.
+     * 
+     * @param info the command
+     */
+    private void logDictionary(CommandLogInfo info)
+    {
+        if (info.m_inDictionary) {
+            return;
+        }
+        info.m_inDictionary = true;
+
+        CommandEventBus.CommandId command = info.m_command;
+        for (int i = 0; i < command.getSubsystemCount(); i++) {
+            if (m_subsystemsInDictionary.put(command.getSubsystem(i), Boolean.TRUE) == null) {
+                m_subsystemLogEntry.append(command.getSubsystemBit(i) + "," + command.getSubsystem(i).getName());
             }
-        );
+        }
+        m_dictionaryLogEntry.append(info.m_command.getId() + "," + info.m_command.getKeyRequirements());
     }
 }
@@ -24,6 +24,8 @@ import frc.robot.subsystems.AchieveHueGoal;
 import frc.robot.subsystems.GroupDisjointSequenceTest;
 import frc.robot.subsystems.HistoryFSM;
 import frc.robot.subsystems.Intake;
+import frc.robot.subsystems.LEDFrameCache;
+import frc.robot.subsystems.LEDLayer;
 import frc.robot.subsystems.RobotSignals;
 import frc.robot.subsystems.RobotSignals.LEDPatternSupplier;
 
@@ -71,14 +73,13 @@ public abstract class CommandsTriggers {
    */
   
   // produce a LED color pattern based on the timer current seconds of the minute
+  // the patterns are precomputed by the palette so the supplier doesn't allocate
+  private static final HuePalette m_colorWheelPalette = HuePalette.of(200, 200);
   private static RobotSignals.LEDPatternSupplier colorWheel =
       () ->
-        LEDPattern.solid(
-            Color.fromHSV(
-                (int) (Timer.getFPGATimestamp() % 60.0 /* seconds of the minute */)
-                    * 3 /* scale seconds to 180 hues per color wheel */,
-                200,
-                200));
+        m_colorWheelPalette.solid(
+            (int) (Timer.getFPGATimestamp() % 60.0 /* seconds of the minute */)
+                * 3 /* scale seconds to 180 hues per color wheel */);
 
   /**
    * Configure Commands
@@ -141,14 +142,17 @@ public abstract class CommandsTriggers {
   private static final InternalButton firstJobTriggersSecond = new InternalButton(); // configure the action decorator must be executed somewhere
   // else and not here because of circular reference - trigger would reference the command and the command would reference the trigger
 
+  private static final BindingLatency.Binding firstJobTriggersSecondLatency = BindingLatency.binding("firstJobTriggersSecond");
+
   private static final Command firstJob = runOnce(()->
           {
             firstJobTriggersSecond.setPressed(false); // add this - assuming not running a .whileTrue()
             System.out.println("first job running");
             firstJobTriggersSecond.setPressed(true); // add this - assuming next running with some "...True()"
+            firstJobTriggersSecondLatency.markTrue();
           });
 
-  private static final Command secondJob = print("second job running");
+  private static final Command secondJob = firstJobTriggersSecondLatency.measure(print("second job running"));
 
 /**
    * Get first command triggers next command test
@@ -188,29 +192,32 @@ public abstract class CommandsTriggers {
 /**
    * Create a command to signal Autonomous mode
    *
-   * <p>Example of setting two signals by contrived example of composed commands
+   * <p>Example of setting two signals - a view's pattern and a status layer over another view
    *
    * @return LED pattern signal for autonomous mode
    */
   @SuppressWarnings("resource")
   public static Command setAutonomousSignal() {
     if (m_UseAutonomousSignal.isPresent()) {
-      LEDPattern autoTopSignal =
+      LEDPattern autoTopSignal = LEDFrameCache.cached( // 2 frames rendered once; blink cycle 0.2 s
             LEDPattern.solid(new Color(0.1, 0.2, 0.2))
-            .blend(LEDPattern.solid(new Color(0.7, 0.2, 0.2)).blink(Seconds.of(0.1)));
-            
+            .blend(LEDPattern.solid(new Color(0.7, 0.2, 0.2)).blink(Seconds.of(0.1))),
+            0.2, 2);
+      LEDLayer autoTopLayer = m_robotSignals.m_top.layer(LEDLayer.Priority.STATUS);
+
       LEDPattern autoMainSignal = LEDPattern.solid(new Color(0.3, 1.0, 0.3));
       // statements before the return are run early at initialization time
       return
         parallel(
-                // interrupting either of the two parallel commands with an external command interrupts
-                // the group
-                m_robotSignals.m_top.setSignal(autoTopSignal)
-                    .withTimeout(6.0)/*.asProxy()*/ // timeout ends but the group continues and
-                // the default command is not activated here with or without the ".andThen" command.
-                // Use ".asProxy()" to disjoint the group and allow the "m_top" default command to run.
-                // What happened to the ".andThen"? Beware using Proxy can cause surprising behavior!
-                    .andThen(m_robotSignals.m_top.setSignal(autoTopSignal)),
+                // the top signal is a status layer drawn over whatever "m_top" shows. The layer
+                // doesn't require "m_top" so its command (the default command here) keeps running
+                // under it and shows again when the layer is cleared - no proxy needed to let the
+                // default command run.
+                Commands.startEnd(
+                    () -> autoTopLayer.set(autoTopSignal, 1., true), // blinks so it's animated
+                    autoTopLayer::clear),
+                // interrupting the main signal with an external command interrupts the group and
+                // that clears the top layer
                 m_robotSignals.m_main.setSignal(autoMainSignal))
           .withName("AutoSignal");
     }
@@ -227,7 +234,11 @@ public abstract class CommandsTriggers {
     /**
      * Use operator "B" button for a fake indicator game piece is acquired
      */
-    m_intake.ifPresent((x)->m_operatorController.b().whileTrue(x.gamePieceIsAcquired()));
+    m_intake.ifPresent((x)->
+    {
+      var latency = BindingLatency.binding("Intake B");
+      latency.watch(m_operatorController.b()).whileTrue(latency.measure(x.gamePieceIsAcquired()));
+    });
 
     /**
      * Start History FSM Control with the operator "Y" button or it's time for a new color
@@ -235,8 +246,10 @@ public abstract class CommandsTriggers {
     m_historyFSM.ifPresent((x)->
     {
       var yButtonDebounceTime = Milliseconds.of(40.0);
-      m_operatorController.y().debounce(yButtonDebounceTime.in(Seconds)).or(x::timesUp)
-        .onTrue(x.newColor());
+      // one condition per binding - the combined condition is watched (after the Y debounce)
+      var latency = BindingLatency.binding("HistoryFSM Y or timesUp");
+      latency.watch(m_operatorController.y().debounce(yButtonDebounceTime.in(Seconds)).or(x::timesUp))
+        .onTrue(latency.measure(x.newColor()));
     });
 
     /**
@@ -245,10 +258,10 @@ public abstract class CommandsTriggers {
     m_UseColorWheel.ifPresent((x) ->
     {
       var xButtonDebounceTime = Milliseconds.of(30.0);
-      m_operatorController
-          .x()
+      var latency = BindingLatency.binding("ColorWheel X");
+      latency.watch(m_operatorController.x())
           .debounce(xButtonDebounceTime.in(Seconds), DebounceType.kBoth)
-          .onTrue(m_robotSignals.m_top.setSignal(colorWheel));
+          .onTrue(latency.measure(m_robotSignals.m_top.setSignal(colorWheel)));
     });
 
     /**
@@ -260,16 +273,18 @@ public abstract class CommandsTriggers {
     m_achieveHueGoal.ifPresent((x)->
     {
       var triggerHueGoalDeadBand = 0.05; //triggers if past a small threshold (scale of 0 to 1)
-      m_operatorController.rightTrigger(triggerHueGoalDeadBand)
-          .onTrue(
+      var hueGoalLatency = BindingLatency.binding("AchieveHueGoal right trigger");
+      hueGoalLatency.watch(m_operatorController.rightTrigger(triggerHueGoalDeadBand))
+          .onTrue(hueGoalLatency.measure(
               x.achieveHue( // goal-acceptance command
                   () -> m_operatorController.getRightTriggerAxis()*180.0 // supplying the setpoint
                   // scale joystick's 0 to 1 to computer color wheel hue 0 to 180
-                  ));
+                  )));
 
       // immediately stop controller
-      m_operatorController.a()
-          .onTrue(x.interrupt());
+      var interruptLatency = BindingLatency.binding("AchieveHueGoal A");
+      interruptLatency.watch(m_operatorController.a())
+          .onTrue(interruptLatency.measure(x.interrupt()));
     });
   }
 
@@ -287,14 +302,17 @@ public abstract class CommandsTriggers {
   private static void configureDefaultCommands() {
     final LEDPattern topDefaultSignal = LEDPattern.solid(new Color(0.0, 0.0, 1.0));
     final LEDPattern mainDefaultSignal = LEDPattern.solid(new Color(0.0, 1.0, 1.0));
-    final LEDPattern disabled = LEDPattern.solid(Color.kRed).breathe(Seconds.of(2.0));
-    final LEDPattern enabled = LEDPattern.solid(Color.kGreen).breathe(Seconds.of(2.0));
+    // the breathing is rendered once into 50 frames per cycle and replayed from the cache
+    final LEDPattern disabled =
+        LEDFrameCache.cached(LEDPattern.solid(Color.kRed).breathe(Seconds.of(2.0)), 2.0, 50);
+    final LEDPattern enabled =
+        LEDFrameCache.cached(LEDPattern.solid(Color.kGreen).breathe(Seconds.of(2.0)), 2.0, 50);
     final LEDPatternSupplier enableDisableDefaultSignal =
         () -> DriverStation.isDisabled() ? disabled : enabled;
     // Intended that hue controller display always be ON so make it noticeable that it's OFF
     // since this default command should never run
-    final LEDPattern hueControllerDisplayOffSignal = LEDPattern.solid(Color.kWhiteSmoke)
-        .blink(Seconds.of(0.09));
+    final LEDPattern hueControllerDisplayOffSignal = LEDFrameCache.cached(
+        LEDPattern.solid(Color.kWhiteSmoke).blink(Seconds.of(0.09)), 0.18, 2);
 
     m_UseColorWheel.ifPresent((x)->
     {
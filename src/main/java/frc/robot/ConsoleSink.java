@@ -0,0 +1,172 @@
+package frc.robot;
+
+/**
+ * Console output that doesn't wait for the console.
+ *
+ * <p>System.out on the roboRIO is synchronous and slow. The demonstration and test commands that
+ * print every iteration spend much of the loop printing and that distorts the very timing they are
+ * trying to show. Here the robot thread only appends to a preallocated line buffer and a low
+ * priority thread prints everything that's waiting every {@value #m_flushPeriodMs} ms with one
+ * print.
+ *
+ * <p>The queue is bounded. If the printing falls behind the new lines are dropped and counted, and
+ * the count is printed when there is room again.
+ *
+ * <p>Print only from the robot thread (commands, triggers, periodic methods) - the queue has one
+ * producer.
+ *
+ * <p>Usage:
+<pre><code>
+  ConsoleSink.print(m_resourceID, m_testNumber); // same as System.out.print(m_resourceID + m_testNumber)
+  ConsoleSink.println("done");
+
+  // anything else without making a String
+  ConsoleSink.begin().append(name).append(' ').append(count).append(" end");
+  ConsoleSink.println();
+</code></pre>
+ */
+public final class ConsoleSink {
+  private static final int m_queueSize = 1024; // power of 2
+  private static final int m_lineCapacity = 80;
+  private static final long m_flushPeriodMs = 20;
+
+  private static final StringBuilder[] m_lines = new StringBuilder[m_queueSize];
+  private static volatile long m_head; // next line to fill; written by the robot thread
+  private static volatile long m_tail; // next line to print; written by the console thread
+  private static volatile long m_dropped; // written by the robot thread
+  private static long m_droppedReported; // console thread only
+  private static final StringBuilder m_overflow = new StringBuilder(m_lineCapacity); // when full
+  private static StringBuilder m_current; // line being built
+  private static final StringBuilder m_batch = new StringBuilder(m_queueSize * 8); // console thread only
+
+  static {
+    for (int i = 0; i < m_queueSize; i++) {
+      m_lines[i] = new StringBuilder(m_lineCapacity);
+    }
+    Thread consoleThread = new Thread(ConsoleSink::flushLoop, "ConsoleSink");
+    consoleThread.setDaemon(true);
+    consoleThread.setPriority(Thread.MIN_PRIORITY);
+    consoleThread.start();
+  }
+
+  private ConsoleSink() {}
+
+  /**
+   * Start a line. Append to the returned buffer then finish with print() or println(). Don't keep
+   * the buffer.
+   *
+   * @return empty buffer for the line
+   */
+  public static StringBuilder begin() {
+    long head = m_head;
+    if (head - m_tail >= m_queueSize) {
+      m_current = m_overflow; // written but never printed
+    } else {
+      m_current = m_lines[(int) head & (m_queueSize - 1)];
+    }
+    m_current.setLength(0);
+    return m_current;
+  }
+
+  /**
+   * Queue the line started by begin().
+   */
+  public static void print() {
+    if (m_current == null) {
+      return;
+    }
+    if (m_current == m_overflow) {
+      m_dropped++;
+    } else {
+      m_head = m_head + 1; // volatile write publishes the line to the console thread
+    }
+    m_current = null;
+  }
+
+  /**
+   * Queue the line started by begin() with a new line.
+   */
+  public static void println() {
+    if (m_current != null) {
+      m_current.append('\n');
+    }
+    print();
+  }
+
+  /**
+   * @param text printed without a new line
+   */
+  public static void print(String text) {
+    begin().append(text);
+    print();
+  }
+
+  /**
+   * @param text printed followed by the number without a new line
+   * @param number printed after the text
+   */
+  public static void print(String text, int number) {
+    begin().append(text).append(number);
+    print();
+  }
+
+  /**
+   * @param text printed followed by the second text without a new line
+   * @param text2 printed after the text
+   */
+  public static void print(String text, String text2) {
+    begin().append(text).append(text2);
+    print();
+  }
+
+  /**
+   * @param text printed with a new line
+   */
+  public static void println(String text) {
+    begin().append(text);
+    println();
+  }
+
+  /**
+   * @return number of lines not printed because the queue was full
+   */
+  public static long getDropped() {
+    return m_dropped;
+  }
+
+  /**
+   * Console thread - print all the waiting lines with one print every so often
+   */
+  private static void flushLoop() {
+    while (!Thread.currentThread().isInterrupted()) {
+      flush();
+      try {
+        Thread.sleep(m_flushPeriodMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static void flush() {
+    long tail = m_tail;
+    long head = m_head;
+    long dropped = m_dropped;
+    if (tail == head && dropped == m_droppedReported) {
+      return;
+    }
+
+    m_batch.setLength(0);
+    for (; tail < head; tail++) {
+      m_batch.append(m_lines[(int) tail & (m_queueSize - 1)]);
+    }
+    m_tail = tail; // volatile write releases the lines to the robot thread
+
+    if (dropped != m_droppedReported) {
+      m_batch.append("\n[console dropped ").append(dropped - m_droppedReported).append(" lines]\n");
+      m_droppedReported = dropped;
+    }
+
+    System.out.print(m_batch);
+  }
+}
@@ -0,0 +1,222 @@
+package frc.robot;
+
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+
+/**
+ * Find where requirements cost us - which commands interrupt which on which subsystem, how much run
+ * time the interrupted commands lose, and how much of the time each subsystem is held by a command
+ * other than its default command.
+ *
+ * <p>A command scheduled on a subsystem that's in use interrupts the running command. That's the
+ * point of requirements but it's also easy to do far more than intended - the FSM demonstrations
+ * schedule setSignal(...) every loop and each one interrupts the previous one. The command log
+ * shows each interruption; this counts them.
+ *
+ * <p>The interruptions come from the {@link CommandEventBus} in batches after the scheduler runs.
+ * Each is counted once per subsystem the two commands share (or once with no subsystem if the
+ * command was interrupted by something other than a command - cancel, timeout, mode change). The run
+ * time lost is how long the interrupted command had been running. The counts are kept in a
+ * preallocated open-addressing table so counting doesn't allocate.
+ *
+ * <p>Utilization is sampled each loop with CommandScheduler.requiring() for every subsystem the bus
+ * has seen.
+ *
+ * <p>Every {@value #m_publishPeriodUs} microseconds to NT "Contention":
+ * <ul>
+ * <li>"Contention/utilization/bit name" - fraction of the loops of the period the subsystem was
+ * held by a command that's not its default command
+ * <li>"Contention/matrix" - since the robot started, most frequent first: "interrupted &lt;-
+ * interrupter on subsystem: count, lost seconds"
+ * </ul>
+ *
+ * <p>Usage:
+<pre><code>
+  ContentionAnalyzer contention = new ContentionAnalyzer();
+  ...
+  contention.periodic(); // in runAfterCommands()
+</code></pre>
+ */
+public class ContentionAnalyzer {
+  private static final long m_publishPeriodUs = 1_000_000;
+  private static final int m_batchSize = 128;
+  private static final int m_maxSubsystems = 63; // bits of the bus
+  private static final int m_maxMatrixLines = 50;
+
+  private final CommandEventBus m_bus = CommandEventBus.getInstance();
+
+  // interrupted x interrupter x subsystem; open addressing - key 0 is empty
+  private long[] m_keys = new long[256]; // power of 2
+  private long[] m_counts = new long[256];
+  private long[] m_lostUs = new long[256];
+  private int m_entries;
+
+  // utilization of the current period by subsystem bit
+  private final int[] m_heldLoops = new int[m_maxSubsystems];
+  private int m_loops;
+  private long m_nextPublishUs;
+
+  private final NetworkTable m_nt = NetworkTableInstance.getDefault().getTable("Contention");
+  private final DoublePublisher[] m_utilizationPublishers = new DoublePublisher[m_maxSubsystems];
+  private final StringArrayPublisher m_matrixPublisher = m_nt.getStringArrayTopic("matrix").publish();
+
+  public ContentionAnalyzer() {
+    m_bus.subscribe(this::onEvent, CommandEventBus.mask(CommandEventBus.INTERRUPT), null, m_batchSize);
+  }
+
+  /**
+   * Sample the utilization and publish if it's time. Run every iteration after the scheduler - in
+   * runAfterCommands().
+   */
+  public void periodic() {
+    CommandScheduler scheduler = CommandScheduler.getInstance();
+    int subsystems = m_bus.getSubsystemCount();
+    for (int bit = 0; bit < subsystems; bit++) {
+      Subsystem subsystem = m_bus.getSubsystem(bit);
+      Command holder = scheduler.requiring(subsystem);
+      if (holder != null && holder != subsystem.getDefaultCommand()) {
+        m_heldLoops[bit]++;
+      }
+    }
+    m_loops++;
+
+    long now = RobotController.getFPGATime();
+    if (now < m_nextPublishUs) {
+      return;
+    }
+    m_nextPublishUs = now + m_publishPeriodUs;
+    publish(subsystems);
+  }
+
+  /**
+   * Batched bus events - interrupt counts the contention. The lost time is from the start of the
+   * interrupted instance's run, kept by the bus.
+   */
+  private void onEvent(CommandEventBus.CommandEvent event) {
+    if (event.getType() != CommandEventBus.INTERRUPT) {
+      return;
+    }
+    CommandEventBus.CommandId command = event.getCommand();
+    long lostUs = event.getRunStartUs() != 0 ? event.getTimeUs() - event.getRunStartUs() : 0;
+    CommandEventBus.CommandId interrupter = event.getInterruptedBy();
+    long shared = interrupter != null ? command.getRequirementMask() & interrupter.getRequirementMask() : 0;
+    if (shared == 0) {
+      count(command, interrupter, -1, lostUs);
+      return;
+    }
+    for (int bit = 0; bit < 64; bit++) {
+      if ((shared & (1L << bit)) != 0) {
+        count(command, interrupter, bit, lostUs);
+      }
+    }
+  }
+
+  /**
+   * Add an interruption to the table
+   *
+   * @param subsystemBit the contested subsystem or -1 for none
+   */
+  private void count(CommandEventBus.CommandId interrupted, CommandEventBus.CommandId interrupter,
+      int subsystemBit, long lostUs) {
+    long key = key(interrupted.getId(), interrupter != null ? interrupter.getId() : -1, subsystemBit);
+    int index = find(key);
+    if (m_keys[index] == 0) {
+      m_keys[index] = key;
+      if (++m_entries * 2 > m_keys.length) {
+        grow(); // rarely - only when new pairs show up
+        index = find(key);
+      }
+    }
+    m_counts[index]++;
+    m_lostUs[index] += lostUs;
+  }
+
+  /**
+   * interrupted id in bits 0-23, interrupter id + 1 in bits 24-47, subsystem bit + 1 in bits 48-55;
+   * never 0
+   */
+  private static long key(int interrupted, int interrupter, int subsystemBit) {
+    return (interrupted + 1L) | (interrupter + 1L) << 24 | (subsystemBit + 1L) << 48;
+  }
+
+  private int find(long key) {
+    int mask = m_keys.length - 1;
+    int index = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+    while (m_keys[index] != 0 && m_keys[index] != key) {
+      index = (index + 1) & mask;
+    }
+    return index;
+  }
+
+  private void grow() {
+    long[] keys = m_keys;
+    long[] counts = m_counts;
+    long[] lostUs = m_lostUs;
+    m_keys = new long[keys.length * 2];
+    m_counts = new long[keys.length * 2];
+    m_lostUs = new long[keys.length * 2];
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        int index = find(keys[i]);
+        m_keys[index] = keys[i];
+        m_counts[index] = counts[i];
+        m_lostUs[index] = lostUs[i];
+      }
+    }
+  }
+
+  /**
+   * Publish the utilization of the period and the matrix; start a new period
+   */
+  private void publish(int subsystems) {
+    for (int bit = 0; bit < subsystems; bit++) {
+      if (m_utilizationPublishers[bit] == null) {
+        m_utilizationPublishers[bit] = m_nt.getDoubleTopic(
+            "utilization/" + bit + " " + m_bus.getSubsystem(bit).getName()).publish();
+      }
+      m_utilizationPublishers[bit].set(m_loops > 0 ? (double) m_heldLoops[bit] / m_loops : 0.);
+      m_heldLoops[bit] = 0;
+    }
+    m_loops = 0;
+
+    if (m_entries == 0) {
+      return;
+    }
+
+    // most frequent first
+    Integer[] order = new Integer[m_entries];
+    int n = 0;
+    for (int i = 0; i < m_keys.length; i++) {
+      if (m_keys[i] != 0) {
+        order[n++] = i;
+      }
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(m_counts[b], m_counts[a]));
+
+    String[] lines = new String[Math.min(n, m_maxMatrixLines)];
+    for (int i = 0; i < lines.length; i++) {
+      int index = order[i];
+      long key = m_keys[index];
+      int interrupted = (int) (key & 0xFFFFFF) - 1;
+      int interrupter = (int) (key >>> 24 & 0xFFFFFF) - 1;
+      int subsystemBit = (int) (key >>> 48 & 0xFF) - 1;
+      lines[i] = m_bus.getCommandId(interrupted).getKey()
+          + " <- " + (interrupter >= 0 ? m_bus.getCommandId(interrupter).getKey() : "not a command")
+          + " on " + (subsystemBit >= 0 ? subsystemName(subsystemBit) : "no subsystem")
+          + ": " + m_counts[index] + ", " + m_lostUs[index] * 1.e-6 + " s";
+    }
+    m_matrixPublisher.set(lines);
+  }
+
+  private String subsystemName(int bit) {
+    return bit < m_bus.getSubsystemCount() ? bit + " " + m_bus.getSubsystem(bit).getName() : "other subsystems";
+  }
+}
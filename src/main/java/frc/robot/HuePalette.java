@@ -0,0 +1,133 @@
+package frc.robot;
+
+import java.util.HashMap;
+
+import edu.wpi.first.wpilibj.LEDPattern;
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * The computer color wheel of hues 0 to 180 at one saturation and value, computed once.
+ *
+ * <p>The hue signals - AchieveHueGoal's controller, the color wheel, HistoryFSM's random colors -
+ * made a new LEDPattern.solid(Color.fromHSV(hue, 200, 200)) every loop or every change. Each hue
+ * only ever has one color so the palette makes them all at startup - with Color.fromHSV() itself,
+ * converted to integer RGB the way LEDWriter.setLED(Color) does, so the LEDs are exactly those of
+ * the patterns replaced:
+ * <ul>
+ * <li>{@link #solid(int)} - an immutable solid pattern per hue that writes integer RGB (no Color
+ * conversion per LED)
+ * <li>{@link #rgb(int)} - the packed 0xRRGGBB of a hue for code that writes pixels itself; unpack
+ * with {@link #red(int)}, {@link #green(int)}, {@link #blue(int)}
+ * </ul>
+ *
+ * <p>Palettes are shared - {@link #of(int, int)} returns the same palette for the same saturation
+ * and value.
+ *
+ * <p>Usage:
+<pre><code>
+  private static final HuePalette m_palette = HuePalette.of(200, 200);
+  ...
+  m_signal = m_palette.solid(hue); // no allocation
+</code></pre>
+ */
+public final class HuePalette {
+  public static final int MAX_HUE = 180; // hues are 0 to 180 like Color.fromHSV()
+
+  private static final HashMap<Integer, HuePalette> m_palettes = new HashMap<>();
+
+  private final int[] m_rgb = new int[MAX_HUE + 1];
+  private final LEDPattern[] m_solid = new LEDPattern[MAX_HUE + 1];
+
+  private HuePalette(int saturation, int value) {
+    for (int hue = 0; hue <= MAX_HUE; hue++) {
+      int rgb = hsvToRgb(hue, saturation, value);
+      m_rgb[hue] = rgb;
+      int r = red(rgb);
+      int g = green(rgb);
+      int b = blue(rgb);
+      m_solid[hue] = (reader, writer) -> {
+        int length = reader.getLength();
+        for (int led = 0; led < length; led++) {
+          writer.setRGB(led, r, g, b);
+        }
+      };
+    }
+  }
+
+  /**
+   * Get the palette of a saturation and value - made the first time. Do this at startup.
+   *
+   * @param saturation 0 to 255
+   * @param value 0 to 255
+   * @return the palette
+   */
+  public static synchronized HuePalette of(int saturation, int value) {
+    if (saturation < 0 || saturation > 255 || value < 0 || value > 255) {
+      throw new IllegalArgumentException("HuePalette saturation and value are 0 to 255");
+    }
+    Integer key = saturation << 8 | value;
+    HuePalette palette = m_palettes.get(key);
+    if (palette == null) {
+      palette = new HuePalette(saturation, value);
+      m_palettes.put(key, palette);
+    }
+    return palette;
+  }
+
+  /**
+   * @param hue 0 to 180; outside is clamped
+   * @return solid pattern of the hue
+   */
+  public LEDPattern solid(int hue) {
+    return m_solid[clamp(hue)];
+  }
+
+  /**
+   * @param hue 0 to 180; outside is clamped
+   * @return 0xRRGGBB of the hue
+   */
+  public int rgb(int hue) {
+    return m_rgb[clamp(hue)];
+  }
+
+  /**
+   * @param rgb 0xRRGGBB
+   * @return red 0 to 255
+   */
+  public static int red(int rgb) {
+    return rgb >> 16 & 0xFF;
+  }
+
+  /**
+   * @param rgb 0xRRGGBB
+   * @return green 0 to 255
+   */
+  public static int green(int rgb) {
+    return rgb >> 8 & 0xFF;
+  }
+
+  /**
+   * @param rgb 0xRRGGBB
+   * @return blue 0 to 255
+   */
+  public static int blue(int rgb) {
+    return rgb & 0xFF;
+  }
+
+  private static int clamp(int hue) {
+    return hue < 0 ? 0 : hue > MAX_HUE ? MAX_HUE : hue;
+  }
+
+  /**
+   * The LED color of a hue - Color.fromHSV() converted like LEDWriter.setLED(Color). Startup only.
+   *
+   * @return 0xRRGGBB
+   */
+  private static int hsvToRgb(int h, int s, int v) {
+    Color color = Color.fromHSV(h, s, v);
+    int r = (int) (color.red * 255);
+    int g = (int) (color.green * 255);
+    int b = (int) (color.blue * 255);
+    return r << 16 | g << 8 | b;
+  }
+}
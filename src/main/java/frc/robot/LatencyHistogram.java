@@ -0,0 +1,99 @@
+package frc.robot;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations with a bucket per power of 2 - coarse but preallocated, allocation-free to
+ * record, and good enough to tell 50 microseconds from 5 milliseconds.
+ *
+ * <p>Bucket i counts durations d with 2^i <= d < 2^(i+1) (bucket 0 also has 0). Percentiles are the
+ * upper bound of the bucket so they are at most twice the true value; the maximum is exact.
+ *
+ * <p>Not thread-safe; record and read from the same thread.
+ *
+ * <p>Usage:
+<pre><code>
+  LatencyHistogram histogram = new LatencyHistogram();
+  long start = System.nanoTime();
+  doSomething();
+  histogram.record(System.nanoTime() - start);
+  ...
+  System.out.println(histogram.percentile(0.99) + " ns");
+  histogram.reset();
+</code></pre>
+ */
+public class LatencyHistogram {
+  private static final int m_buckets = 64;
+  private final long[] m_counts = new long[m_buckets];
+  private long m_count;
+  private long m_max;
+  private long m_sum;
+
+  /**
+   * Add a duration. Negative durations count as 0.
+   *
+   * @param duration any unit - nanoseconds, microseconds - but use the same unit for all
+   */
+  public void record(long duration) {
+    if (duration < 0) {
+      duration = 0;
+    }
+    m_counts[duration == 0 ? 0 : 63 - Long.numberOfLeadingZeros(duration)]++;
+    m_count++;
+    m_sum += duration;
+    if (duration > m_max) {
+      m_max = duration;
+    }
+  }
+
+  /**
+   * @param fraction 0.5 for the median, 0.99 for the 99th percentile, etc.
+   * @return upper bound of the bucket with the percentile limited by the maximum; 0 if empty
+   */
+  public long percentile(double fraction) {
+    if (m_count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(fraction * m_count);
+    long cumulative = 0;
+    for (int i = 0; i < m_buckets; i++) {
+      cumulative += m_counts[i];
+      if (cumulative >= rank && cumulative > 0) {
+        long upperBound = i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+        return Math.min(upperBound, m_max);
+      }
+    }
+    return m_max;
+  }
+
+  /**
+   * @return largest duration recorded; 0 if empty
+   */
+  public long max() {
+    return m_max;
+  }
+
+  /**
+   * @return average duration; 0 if empty
+   */
+  public double mean() {
+    return m_count == 0 ? 0. : (double) m_sum / m_count;
+  }
+
+  /**
+   * @return number of durations recorded
+   */
+  public long count() {
+    return m_count;
+  }
+
+  /**
+   * Empty the histogram to start a new window.
+   */
+  public void reset() {
+    Arrays.fill(m_counts, 0);
+    m_count = 0;
+    m_max = 0;
+    m_sum = 0;
+  }
+}
@@ -0,0 +1,224 @@
+package frc.robot;
+
+import java.util.Set;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.Commands;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+
+/**
+ * A command group that runs a list of commands in sequence and holds each subsystem only while the
+ * command that needs it is running.
+ *
+ * A normal sequence requires all of the subsystems of all of its commands for the entire sequence
+ * so the default commands can't run in the gaps. This group has no requirements of its own. Each
+ * command that has requirements is given a "lease" - a do-nothing command that requires the same
+ * subsystems - that is scheduled just before the command starts and cancelled as soon as the command
+ * ends. While a subsystem is not leased its default command runs normally.
+ *
+ * Compares to using "proxies" and "triggers" but there are no extra layers around the commands and
+ * the group still runs the commands itself like a normal group.
+ *
+ * <p>Usage:
+<pre><code>
+Command test = new LeasedSequenceGroup(
+    mySubsystem.test1(),
+    waitSeconds(0.1), // default command of mySubsystem runs here
+    mySubsystem.test2());
+test.schedule();
+</code></pre>
+ *
+ * <p>A command with requirements starts the iteration after its lease has been granted so the lease
+ * interrupts the default command before the command runs. Commands without requirements start
+ * immediately.
+ *
+ * <p>If a lease is refused (a non-interruptible command holds a subsystem) or a lease is later
+ * interrupted by another command then the running command is interrupted and the group is aborted.
+ * That's not the same as a normal sequence (Commands.sequence) losing a requirement:
+ * <ul>
+ * <li>A normal sequence is interrupted - end(true) - and so is every composition around it.
+ * <li>This group finishes - isFinished() true and its end(false) - because a command can't make
+ * its parent see an interruption (and cancel() does nothing to a composed command). A parent
+ * sequence goes on to its next command, finallyDo() sees interrupted false, and repeatedly()
+ * starts the group again - every other iteration for a lease that's always refused.
+ * </ul>
+ * Check {@link #isAborted()} where an abort matters. It stays true until the group starts again:
+<pre><code>
+LeasedSequenceGroup leased = new LeasedSequenceGroup(...);
+Command repeated = leased.repeatedly().until(leased::isAborted); // stop repeating on an abort
+Command then = sequence(leased, either(recover(), carryOn(), leased::isAborted));
+</code></pre>
+ *
+ * <p>An empty group finishes immediately.
+ *
+ * <p>Because the group has no requirements it doesn't protect the entire sequence from being run
+ * twice at the same time; each command is protected only while it runs.
+ */
+public class LeasedSequenceGroup extends Command {
+  private final Command[] m_commands;
+  private final Command[] m_leases; // null for a command without requirements
+  private int m_currentIndex = -1;
+  private boolean m_currentStarted; // current command has been initialized
+  private boolean m_leaseRequested; // lease was scheduled at least one iteration ago
+  private boolean m_aborted; // a lease was refused or lost; the group is finished until restarted
+  private final boolean m_runWhenDisabled;
+
+  /**
+   * Creates a new LeasedSequenceGroup. The given commands will be run sequentially with the group
+   * finishing when the last command finishes.
+   *
+   * @param commands the commands to include in this composition.
+   */
+  public LeasedSequenceGroup(Command... commands) {
+    CommandScheduler.getInstance().registerComposedCommands(commands);
+
+    m_commands = commands.clone();
+    m_leases = new Command[commands.length];
+    boolean runWhenDisabled = true;
+
+    for (int i = 0; i < commands.length; i++) {
+      Set<Subsystem> requirements = commands[i].getRequirements();
+      if (!requirements.isEmpty()) {
+        m_leases[i] = Commands.idle(requirements.toArray(new Subsystem[0]))
+            .ignoringDisable(commands[i].runsWhenDisabled())
+            .withName("Lease " + commands[i].getName());
+      }
+      runWhenDisabled &= commands[i].runsWhenDisabled();
+    }
+    m_runWhenDisabled = runWhenDisabled;
+  }
+
+  @Override
+  public void initialize() {
+    m_currentIndex = 0;
+    m_currentStarted = false;
+    m_leaseRequested = false;
+    m_aborted = false;
+    if (m_commands.length == 0) {
+      return;
+    }
+    requestLease();
+  }
+
+  @Override
+  public void execute() {
+    if (m_aborted || m_currentIndex >= m_commands.length) {
+      return;
+    }
+
+    if (!m_currentStarted) {
+      if (!startIfLeased()) {
+        return; // still waiting for the lease or the group was aborted
+      }
+    }
+    else if (leaseLost()) {
+      m_commands[m_currentIndex].end(true);
+      m_currentStarted = false;
+      abort();
+      return;
+    }
+
+    Command current = m_commands[m_currentIndex];
+    current.execute();
+    if (current.isFinished()) {
+      current.end(false);
+      releaseLease(); // default command can run again this iteration
+      m_currentStarted = false;
+      m_currentIndex++;
+      if (m_currentIndex < m_commands.length) {
+        requestLease();
+        startIfLeased(); // commands without requirements start immediately
+      }
+    }
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (interrupted && m_currentStarted && m_currentIndex < m_commands.length) {
+      m_commands[m_currentIndex].end(true);
+    }
+    m_currentStarted = false;
+    releaseLease();
+    m_currentIndex = -1;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return m_aborted || m_currentIndex >= m_commands.length;
+  }
+
+  /**
+   * @return true if the group's last run ended because a lease was refused or lost - the group's
+   *     end(false) doesn't say so. Reset when the group starts again.
+   */
+  public boolean isAborted() {
+    return m_aborted;
+  }
+
+  @Override
+  public boolean runsWhenDisabled() {
+    return m_runWhenDisabled;
+  }
+
+  /**
+   * Schedule the lease for the current command. Scheduling from within the command loop is deferred
+   * by the scheduler until the loop completes so the lease is granted by the next iteration.
+   */
+  private void requestLease() {
+    m_leaseRequested = false;
+    if (m_currentIndex < 0 || m_currentIndex >= m_leases.length) {
+      return;
+    }
+    Command lease = m_leases[m_currentIndex];
+    if (lease != null) {
+      lease.schedule();
+    }
+  }
+
+  /**
+   * Start the current command if it doesn't need a lease or its lease has been granted.
+   *
+   * @return true if the current command has been started
+   */
+  private boolean startIfLeased() {
+    Command lease = m_leases[m_currentIndex];
+    if (lease == null || lease.isScheduled()) {
+      m_commands[m_currentIndex].initialize();
+      m_currentStarted = true;
+      return true;
+    }
+
+    if (m_leaseRequested) { // had a full iteration to be granted so it was refused
+      abort();
+    }
+    else {
+      m_leaseRequested = true;
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the lease of the running command was taken by another command
+   */
+  private boolean leaseLost() {
+    Command lease = m_leases[m_currentIndex];
+    return lease != null && !lease.isScheduled();
+  }
+
+  /**
+   * End the group at the next isFinished() - cancel() does nothing to a group that is composed in
+   * another group
+   */
+  private void abort() {
+    m_aborted = true;
+    releaseLease();
+  }
+
+  /** Cancel the lease of the current command so its subsystems are released. */
+  private void releaseLease() {
+    if (m_currentIndex >= 0 && m_currentIndex < m_leases.length && m_leases[m_currentIndex] != null) {
+      m_leases[m_currentIndex].cancel();
+    }
+  }
+}
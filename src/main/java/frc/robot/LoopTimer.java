@@ -0,0 +1,319 @@
+package frc.robot;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+
+/**
+ * Time each phase of Robot.robotPeriodic() - runBeforeCommands(), the scheduler, runAfterCommands()
+ * - and each subsystem's part of the before and after phases, and how late each loop starts.
+ *
+ * <p>The WPILib watchdog prints after an overrun but it doesn't separate our periodic work from the
+ * scheduler's and it doesn't say how close the loops that didn't overrun came. This is always on so
+ * it's allocation-free while the robot runs - the rings and histograms are preallocated and the
+ * sections are registered once at startup.
+ *
+ * <p>Sections are timed two ways with one clock read each:
+ * <ul>
+ * <li>{@link #endPhase(int)} - time since the previous phase ended (or the loop started)
+ * <li>{@link #mark(int)} - time since the previous mark or phase end so a line after each subsystem's
+ * hook times that subsystem
+ * </ul>
+ *
+ * <p>Output to the DataLog:
+ * <ul>
+ * <li>"Loop/sections" - "index,name" once per section as it's added
+ * <li>"Loop/summary" - every second, for each section by index: median, 99th percentile, maximum (ms)
+ * of that second. Section {@link #LOOP} is the entire loop and {@link #JITTER} is how late the loop
+ * started compared to the nominal period (absolute value)
+ * <li>"Loop/overrun" - when a loop takes longer than the period: that loop's duration of each section
+ * by index (ms); jitter is signed
+ * </ul>
+ *
+ * <p>{@link #writeMetrics(StringBuilder)} gives the last summary and the overruns to the
+ * {@link MetricsServer}.
+ *
+ * <p>Usage:
+<pre><code>
+  // RobotContainer
+  LoopTimer loopTimer = new LoopTimer(TimedRobot.kDefaultPeriod);
+  int intakeBefore = loopTimer.addSection("before Intake");
+  ...
+  m_intake.ifPresent((x)->x.runBeforeCommands()); loopTimer.mark(intakeBefore);
+
+  // Robot.robotPeriodic()
+  loopTimer.startLoop();
+  m_robotContainer.runBeforeCommands();
+  loopTimer.endPhase(LoopTimer.BEFORE);
+  CommandScheduler.getInstance().run();
+  loopTimer.endPhase(LoopTimer.SCHEDULER);
+  m_robotContainer.runAfterCommands();
+  loopTimer.endPhase(LoopTimer.AFTER);
+  loopTimer.endLoop();
+</code></pre>
+ */
+public class LoopTimer {
+  // built-in sections
+  public static final int LOOP = 0;
+  public static final int JITTER = 1;
+  public static final int BEFORE = 2;
+  public static final int SCHEDULER = 3;
+  public static final int AFTER = 4;
+
+  private static final int m_maxSections = 32;
+  private static final int m_ringSize = 256; // power of 2; about 5 seconds of loops
+  private static final long m_summaryPeriodNs = 1_000_000_000L;
+  private static final double m_nsToMs = 1.e-6;
+
+  private final long m_periodNs;
+  private final String[] m_names = new String[m_maxSections];
+  private int m_sections;
+  private final LatencyHistogram[] m_histograms = new LatencyHistogram[m_maxSections];
+  private final long[][] m_rings = new long[m_maxSections][m_ringSize]; // recent durations (ns)
+  private final long[] m_current = new long[m_maxSections]; // this loop's durations (ns)
+  private int m_ringIndex;
+
+  private long m_loopStart;
+  private long m_previousLoopStart;
+  private long m_phaseStart;
+  private long m_lastMark;
+  private long m_nextSummary;
+  private volatile long m_overruns; // written by the robot thread only
+  private boolean m_overrun; // the last loop overran
+
+  private final StringLogEntry m_sectionsLogEntry;
+  private final DoubleArrayLogEntry m_summaryLogEntry;
+  private final DoubleArrayLogEntry m_overrunLogEntry;
+  private double[] m_summary = new double[0]; // sized when sections are added
+  private double[] m_overrunDurations = new double[0]; // sized when sections are added
+  private final double[][] m_snapshots = {new double[0], new double[0]}; // summaries for other threads
+  private int m_snapshotIndex;
+  private volatile double[] m_snapshot = m_snapshots[0]; // last summary; see writeMetrics()
+  private AllocationMonitor m_allocationMonitor; // optional
+
+  /**
+   * @param periodSeconds nominal loop period - TimedRobot.kDefaultPeriod or the period given to
+   *     TimedRobot
+   */
+  public LoopTimer(double periodSeconds) {
+    m_periodNs = (long) (periodSeconds * 1.e9);
+
+    DataLog log = DataLogManager.getLog();
+    m_sectionsLogEntry = new StringLogEntry(log, "Loop/sections");
+    m_summaryLogEntry = new DoubleArrayLogEntry(log, "Loop/summary");
+    m_overrunLogEntry = new DoubleArrayLogEntry(log, "Loop/overrun");
+
+    addSection("loop");
+    addSection("start jitter");
+    addSection("before commands");
+    addSection("scheduler");
+    addSection("after commands");
+  }
+
+  /**
+   * Also measure the allocation of each phase - the monitor is told of the loop start, the BEFORE,
+   * SCHEDULER, and AFTER phase ends, and the loop end with the overrun.
+   *
+   * @param allocationMonitor the monitor or null for none
+   */
+  public void setAllocationMonitor(AllocationMonitor allocationMonitor) {
+    m_allocationMonitor = allocationMonitor;
+  }
+
+  /**
+   * Add a section to be timed. Do this at startup - not while the robot is running.
+   *
+   * @param name name of the section in the DataLog
+   * @return index of the section for mark() or endPhase()
+   */
+  public int addSection(String name) {
+    if (m_sections >= m_maxSections) {
+      throw new IllegalArgumentException("Too many LoopTimer sections; max " + m_maxSections);
+    }
+    int section = m_sections++;
+    m_names[section] = name;
+    m_histograms[section] = new LatencyHistogram();
+    m_summary = new double[m_sections * 3];
+    m_snapshots[0] = new double[m_sections * 3];
+    m_snapshots[1] = new double[m_sections * 3];
+    m_overrunDurations = new double[m_sections];
+    m_sectionsLogEntry.append(section + "," + name);
+    return section;
+  }
+
+  /**
+   * Start of the loop - first thing in robotPeriodic()
+   */
+  public void startLoop() {
+    long now = System.nanoTime();
+    m_previousLoopStart = m_loopStart;
+    m_loopStart = now;
+    m_phaseStart = now;
+    m_lastMark = now;
+    if (m_nextSummary == 0) {
+      m_nextSummary = now + m_summaryPeriodNs;
+    }
+    for (int section = 0; section < m_sections; section++) {
+      m_current[section] = 0;
+    }
+    if (m_previousLoopStart != 0) {
+      // jitter histogram is absolute; the ring and the overrun event are signed
+      long jitter = now - m_previousLoopStart - m_periodNs;
+      m_current[JITTER] = jitter;
+      m_histograms[JITTER].record(Math.abs(jitter));
+    }
+
+    if (m_allocationMonitor != null) {
+      m_allocationMonitor.startLoop();
+    }
+  }
+
+  /**
+   * End of a phase - time since the start of the loop or the end of the previous phase.
+   *
+   * @param section BEFORE, SCHEDULER, AFTER or an added section
+   */
+  public void endPhase(int section) {
+    long now = System.nanoTime();
+    record(section, now - m_phaseStart);
+    m_phaseStart = now;
+    m_lastMark = now;
+
+    if (m_allocationMonitor != null && section <= AFTER) {
+      m_allocationMonitor.endPhase(section);
+    }
+  }
+
+  /**
+   * End of a part of a phase - time since the previous mark or the end of the previous phase.
+   *
+   * @param section an added section
+   */
+  public void mark(int section) {
+    long now = System.nanoTime();
+    record(section, now - m_lastMark);
+    m_lastMark = now;
+  }
+
+  /**
+   * End of the loop - last thing in robotPeriodic(). Logs the overrun if there was one and the
+   * summary if it's time.
+   */
+  public void endLoop() {
+    long now = System.nanoTime();
+    long loop = now - m_loopStart;
+    record(LOOP, loop);
+
+    for (int section = 0; section < m_sections; section++) {
+      m_rings[section][m_ringIndex] = m_current[section];
+    }
+    m_ringIndex = (m_ringIndex + 1) & (m_ringSize - 1);
+
+    m_overrun = loop > m_periodNs;
+    if (m_overrun) {
+      m_overruns++;
+      for (int section = 0; section < m_sections; section++) {
+        m_overrunDurations[section] = m_current[section] * m_nsToMs;
+      }
+      m_overrunLogEntry.append(m_overrunDurations);
+    }
+
+    if (now >= m_nextSummary) {
+      m_nextSummary = now + m_summaryPeriodNs;
+      for (int section = 0; section < m_sections; section++) {
+        LatencyHistogram histogram = m_histograms[section];
+        m_summary[section * 3] = histogram.percentile(0.5) * m_nsToMs;
+        m_summary[section * 3 + 1] = histogram.percentile(0.99) * m_nsToMs;
+        m_summary[section * 3 + 2] = histogram.max() * m_nsToMs;
+        histogram.reset();
+      }
+      m_summaryLogEntry.append(m_summary);
+
+      // publish a copy for other threads; the other copy isn't written until the next summary
+      m_snapshotIndex ^= 1;
+      double[] snapshot = m_snapshots[m_snapshotIndex];
+      System.arraycopy(m_summary, 0, snapshot, 0, snapshot.length);
+      m_snapshot = snapshot;
+    }
+
+    if (m_allocationMonitor != null) {
+      m_allocationMonitor.endLoop(m_overrun);
+    }
+  }
+
+  /**
+   * @return true if the last completed loop took longer than the period
+   */
+  public boolean isOverrun() {
+    return m_overrun;
+  }
+
+  /**
+   * @return number of loops that took longer than the period
+   */
+  public long getOverruns() {
+    return m_overruns;
+  }
+
+  /**
+   * @return nominal loop period (ns)
+   */
+  public long getPeriodNs() {
+    return m_periodNs;
+  }
+
+  /**
+   * @return number of sections including the built-in ones
+   */
+  public int getSections() {
+    return m_sections;
+  }
+
+  /**
+   * @param section index of the section
+   * @return name of the section
+   */
+  public String getName(int section) {
+    return m_names[section];
+  }
+
+  /**
+   * Recent durations of a section, oldest first. Copied to the caller's array so it can be reused.
+   *
+   * @param section index of the section
+   * @param durations at least {@value #m_ringSize} long; filled with durations (ns)
+   */
+  public void getRecent(int section, long[] durations) {
+    for (int i = 0; i < m_ringSize; i++) {
+      durations[i] = m_rings[section][(m_ringIndex + i) & (m_ringSize - 1)];
+    }
+  }
+
+  /**
+   * Write the last summary and the overrun count for the {@link MetricsServer}. Safe to call from
+   * another thread - the summary is a copy published once per second.
+   *
+   * @param out the metrics text
+   */
+  public void writeMetrics(StringBuilder out) {
+    double[] snapshot = m_snapshot;
+    MetricsServer.header(out, "robot_loop_section_ms", "gauge",
+        "Loop section duration of the last second (ms) by section and statistic");
+    for (int section = 0; section < snapshot.length / 3; section++) {
+      for (int statistic = 0; statistic < 3; statistic++) {
+        out.append("robot_loop_section_ms{section=\"");
+        MetricsServer.label(out, m_names[section]).append("\",statistic=\"")
+            .append(statistic == 0 ? "p50" : statistic == 1 ? "p99" : "max").append("\"} ")
+            .append(snapshot[section * 3 + statistic]).append('\n');
+      }
+    }
+    MetricsServer.header(out, "robot_loop_overruns_total", "counter", "Loops longer than the period");
+    out.append("robot_loop_overruns_total ").append(m_overruns).append('\n');
+  }
+
+  private void record(int section, long duration) {
+    m_current[section] = duration;
+    m_histograms[section].record(duration);
+  }
+}
@@ -0,0 +1,129 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+
+/**
+ * Serve the robot's performance counters as Prometheus text at http://robot:port/metrics so a long
+ * soak run on the robot or the simulator can be scraped and graphed while it runs instead of
+ * digging through the DataLog afterwards.
+ *
+ * <p>The server runs on its own low priority daemon thread. Each scrape asks the sources to write
+ * their metrics; the sources only read values the robot thread publishes with volatile writes so the
+ * robot thread never waits for a scrape.
+ *
+ * <p>Usage:
+<pre><code>
+  MetricsServer metrics = new MetricsServer(5800);
+  metrics.addSource(loopTimer::writeMetrics);
+  metrics.addSource(StateMachine::writeMetrics);
+</code></pre>
+ */
+public class MetricsServer {
+  /**
+   * Writes some metrics in the Prometheus text format. Called in the server thread so only read what
+   * the robot thread publishes safely.
+   */
+  @FunctionalInterface
+  public interface MetricsSource {
+    /**
+     * @param out append the metrics
+     */
+    void writeMetrics(StringBuilder out);
+  }
+
+  private final List<MetricsSource> m_sources = new CopyOnWriteArrayList<>();
+  private final StringBuilder m_text = new StringBuilder(16 * 1024); // server thread only
+  private HttpServer m_server;
+
+  /**
+   * Start the server. If the port can't be opened an Alert is shown and the robot runs without it.
+   *
+   * @param port TCP port; 5800 to 5810 are open on the robot radio for team use
+   */
+  public MetricsServer(int port) {
+    try {
+      m_server = HttpServer.create(new InetSocketAddress(port), 0);
+    } catch (IOException e) {
+      new Alert("Metrics server not started on port " + port + ": " + e.getMessage(), AlertType.kWarning).set(true);
+      return;
+    }
+    m_server.createContext("/metrics", this::handle);
+    m_server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "MetricsServer");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    }));
+    m_server.start();
+  }
+
+  /**
+   * Add a source of metrics. Do this at startup.
+   *
+   * @param source writes its metrics for each scrape
+   */
+  public void addSource(MetricsSource source) {
+    m_sources.add(source);
+  }
+
+  /**
+   * Append the HELP and TYPE lines of a metric.
+   *
+   * @param out the text
+   * @param name metric name
+   * @param type "counter" or "gauge"
+   * @param help description
+   */
+  public static void header(StringBuilder out, String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  /**
+   * Append a label value with the characters Prometheus requires escaped.
+   *
+   * @param out the text
+   * @param value label value
+   * @return the text
+   */
+  public static StringBuilder label(StringBuilder out, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\': out.append("\\\\"); break;
+        case '"':  out.append("\\\""); break;
+        case '\n': out.append("\\n"); break;
+        default:   out.append(c); break;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * One scrape - server thread
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    m_text.setLength(0);
+    for (MetricsSource source : m_sources) {
+      source.writeMetrics(m_text);
+    }
+    byte[] body = m_text.toString().getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
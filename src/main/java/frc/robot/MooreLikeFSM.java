@@ -9,6 +9,7 @@ import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import frc.robot.StateMachine.State;
+import frc.robot.subsystems.LEDFrameCache;
 import frc.robot.subsystems.RobotSignals.LEDView;
 
 /**
@@ -48,6 +49,8 @@ public class MooreLikeFSM {
   private final Color m_color; // changeable color of the scanner
   private final double m_numberPeriods = 14.0; // number of periods or time bins to generate time-based triggers
   private int counter;
+  private final LEDView.PatternSlot m_light; // holds the view; swapping patterns doesn't schedule commands
+  private final LEDPattern[] m_lightSignals = new LEDPattern[LightState.values().length]; // made once
 
   /**
    * Eight states of the lights in the Knight Rider Kitt Scanner.
@@ -71,6 +74,10 @@ public class MooreLikeFSM {
     m_robotSignals = robotSignals;
     m_periodFactor = periodFactor;
     m_color = color;
+    m_light = robotSignals.newSlot("Moore-Like " + color + " light");
+    for (LightState state : LightState.values()) {
+      m_lightSignals[state.ordinal()] = LEDFrameCache.cached(oneLEDSmeared(state.ordinal(), m_color, Color.kBlack)); // rendered once per view length
+    }
   }
 
   /**
@@ -169,16 +176,15 @@ public class MooreLikeFSM {
    * @return the command to run that defines the state - turns on the correct LED
    */
   private final Command activateLight(LightState state) {
-    return 
+    return CommandProfiler.profile(
       // steady-state action; entry and exit actions not needed for these commands
         Commands.run(() ->
           {
-            LEDPattern currentStateSignal = oneLEDSmeared(state.ordinal(), m_color, Color.kBlack);
-            m_robotSignals.setSignal(currentStateSignal).schedule();
+            m_light.show(m_lightSignals[state.ordinal()]); // field write once the slot holds the view
             SmartDashboard.putString("FSM steady-state action "+this, state.name());
           })
         .ignoringDisable(true)
-        .withName("Moore-Like " + m_color + " " + state); // "this" is more precise discriminator
+        .withName("Moore-Like " + m_color + " " + state)); // "this" is more precise discriminator
                                                   // but "m_color" is prettier and likely as good
   }
  
@@ -119,6 +119,7 @@
  * Restrict Subsystem Default Command to none until set once at any time and then unchangeable.
  * Controller subsystem scheduled by a command to reach a Goal.
  * Default commands can either run or not run within a sequential group depending on how the group is defined using Proxy.
+ * Default commands run within a sequential group that leases each subsystem only while it is used.
  * Commands run in sequence by triggering successive commands.
  *  [option set within code to invoke this technique]
  * Commands run in parallel by triggering successive commands after the first command completes.
@@ -141,6 +142,8 @@
  *  3. manually code the function of the default command within a group.
  *  4. break groups into smaller groups and use Triggers to sequence multiple groups.
  *  5. use Proxy branching out of the group restriction.
+ *  6. use a group that leases each subsystem only while the command that needs it is running
+ *     (LeasedSequenceGroup).
  *
  * Using Triggers to sequence successive commands may help better organize the command flow and
  * isolate some subsystem requirements so the default command can run. That’s okay and is preferred
@@ -227,15 +230,23 @@ public class Robot extends TimedRobot {
 
   @Override
   public void robotPeriodic() {
+    LoopTimer loopTimer = m_robotContainer.getM_loopTimer(); // time each phase of the loop
+    loopTimer.startLoop();
+
     // get a consistent set of all inputs including non-subsystems not in scheduler run
     m_robotContainer.runBeforeCommands(); // this is essentially similar to running the scheduler
                                           // Subsystem.periodic()
+    loopTimer.endPhase(LoopTimer.BEFORE);
 
     // check all triggers and run all scheduled commands; all Subsystem.periodic() are run first
     CommandScheduler.getInstance().run();
+    loopTimer.endPhase(LoopTimer.SCHEDULER);
 
     // write outputs like logging, dashboards, indicators, meh - goal-oriented subsystem periodic
     m_robotContainer.runAfterCommands();
+    loopTimer.endPhase(LoopTimer.AFTER);
+
+    loopTimer.endLoop();
   }
   
   @Override
@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import edu.wpi.first.wpilibj.Alert;
 import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.util.Color;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 
@@ -42,6 +43,15 @@ public class RobotContainer {
   private boolean useConsole            = false;
   private boolean useDataLog            = true;
   private boolean useShuffleBoardLog    = false;
+  private boolean useStructuredLog      = false; // binary command events directly to the DataLog
+  private boolean useCommandProfiler    = false; // time the profiled commands; results in NT "Profile"
+  private boolean useAllocationMonitor  = false; // bytes allocated per loop phase and GC overruns to the DataLog
+  private boolean useMetricsServer      = false; // Prometheus text at http://robot:5800/metrics for soak runs
+  private boolean useContentionAnalyzer = false; // who interrupts whom and subsystem utilization in NT "Contention"
+
+  //FIXME options for the LEDs
+  private boolean useLEDCompositor      = false; // render the LED patterns on a background thread
+  private boolean useLEDNotifier        = false; // render and send the LEDs at their own rate; instead of the compositor
 
   // required classes and subsystems
 
@@ -56,6 +66,30 @@ public class RobotContainer {
     return m_robotSignals;
   }
   
+  // always on timing of the parts of the robot loop; Robot times the phases
+  private final LoopTimer m_loopTimer = new LoopTimer(TimedRobot.kDefaultPeriod); // change if Robot changes the period
+  public LoopTimer getM_loopTimer() {
+    return m_loopTimer;
+  }
+
+  private final int m_beforeAchieveHueGoal            = m_loopTimer.addSection("before AchieveHueGoal");
+  private final int m_beforeGroupDisjointSequenceTest = m_loopTimer.addSection("before GroupDisjointSequenceTest");
+  private final int m_beforeHistoryFSM                = m_loopTimer.addSection("before HistoryFSM");
+  private final int m_beforeIntake                    = m_loopTimer.addSection("before Intake");
+  private final int m_beforeMooreLikeFSMMultiCommand  = m_loopTimer.addSection("before MooreLikeFSMMultiCommand");
+  private final int m_beforeRobotSignals              = m_loopTimer.addSection("before RobotSignals");
+  private final int m_afterAchieveHueGoal             = m_loopTimer.addSection("after AchieveHueGoal");
+  private final int m_afterGroupDisjointSequenceTest  = m_loopTimer.addSection("after GroupDisjointSequenceTest");
+  private final int m_afterHistoryFSM                 = m_loopTimer.addSection("after HistoryFSM");
+  private final int m_afterIntake                     = m_loopTimer.addSection("after Intake");
+  private final int m_afterMooreLikeFSMMultiCommand   = m_loopTimer.addSection("after MooreLikeFSMMultiCommand");
+  private final int m_afterRobotSignals               = m_loopTimer.addSection("after RobotSignals");
+  private final int m_afterCommandProfiler            = m_loopTimer.addSection("after CommandProfiler");
+  private final int m_afterCommandSchedulerLog        = m_loopTimer.addSection("after CommandSchedulerLog");
+  private final int m_afterCommandEventBus            = m_loopTimer.addSection("after CommandEventBus");
+  private final int m_afterContentionAnalyzer         = m_loopTimer.addSection("after ContentionAnalyzer");
+  private final int m_afterBindingLatency             = m_loopTimer.addSection("after BindingLatency");
+
   // optional classes and subsystems
 
   private Optional<AchieveHueGoal> m_achieveHueGoal = useAchieveHueGoal ? Optional.of(new AchieveHueGoal(m_robotSignals.m_achieveHueGoal)) : Optional.empty();
@@ -137,9 +171,39 @@ public class RobotContainer {
      * Here are 3 ways with options within the method.
      */
     configureCommandLogs(); // do early on otherwise log not ready for first commands
+
+    CommandProfiler.setEnabled(useCommandProfiler);
+
+    if (useAllocationMonitor) {
+      final long bytesPerLoopThreshold = 100_000; //FIXME warn if more allocated per loop
+      m_loopTimer.setAllocationMonitor(new AllocationMonitor(bytesPerLoopThreshold));
+    }
+
+    if (useLEDNotifier) {
+      final double enabledHz = 50.; //FIXME LED frame rates
+      final double disabledHz = 25.;
+      m_robotSignals.setOverrunCount(m_loopTimer::getOverruns);
+      m_robotSignals.startNotifier(enabledHz, disabledHz);
+    } else if (useLEDCompositor) {
+      m_robotSignals.startCompositor();
+    }
+
+    if (useContentionAnalyzer) {
+      contentionAnalyzer = new ContentionAnalyzer();
+    }
+
+    if (useMetricsServer) {
+      final int metricsPort = 5800; //FIXME team use ports are 5800 to 5810
+      MetricsServer metrics = new MetricsServer(metricsPort);
+      metrics.addSource(m_loopTimer::writeMetrics);
+      if (schedulerLog != null) metrics.addSource(schedulerLog::writeMetrics);
+      metrics.addSource(StateMachine::writeMetrics);
+      metrics.addSource(m_robotSignals::writeMetrics);
+    }
   }
 
   private CommandSchedulerLog schedulerLog;
+  private ContentionAnalyzer contentionAnalyzer;
 
   /**
    * Configure Command logging to Console/Terminal, DataLog, or ShuffleBoard
@@ -147,12 +211,14 @@ public class RobotContainer {
   @SuppressWarnings("resource")
   public void configureCommandLogs()
   {
-      if (useConsole || useDataLog || useShuffleBoardLog) {
-        schedulerLog = new CommandSchedulerLog(useConsole, useDataLog, useShuffleBoardLog);
+      if (useConsole || useDataLog || useShuffleBoardLog || useStructuredLog) {
+        schedulerLog = new CommandSchedulerLog(useConsole, useDataLog, useShuffleBoardLog, useStructuredLog);
         schedulerLog.logCommandInitialize();
         schedulerLog.logCommandInterrupt();
         schedulerLog.logCommandFinish();
         schedulerLog.logCommandExecute();  // Can (optionally) generate a lot of output        
+        // log more than the first execute of the commands being debugged, for example:
+        // schedulerLog.setExecuteSampling("Moore-Like", CommandSchedulerLog.ExecuteSampling.everyNth(25));
       }
       else {
         new Alert("No logging", AlertType.kWarning).set(true);
@@ -188,12 +254,12 @@ public class RobotContainer {
    *
    */
   public void runBeforeCommands() {
-    m_achieveHueGoal           .ifPresent((x)->x.runBeforeCommands());
-    m_groupDisjointSequenceTest.ifPresent((x)->x.runBeforeCommands());
-    m_historyFSM               .ifPresent((x)->x.runBeforeCommands());
-    m_intake                   .ifPresent((x)->x.runBeforeCommands());
-    m_mooreLikeFSMMultiCommand .ifPresent((x)->x.runBeforeCommands());
-    m_robotSignals                              .runBeforeCommands();
+    m_achieveHueGoal           .ifPresent((x)->x.runBeforeCommands()); m_loopTimer.mark(m_beforeAchieveHueGoal);
+    m_groupDisjointSequenceTest.ifPresent((x)->x.runBeforeCommands()); m_loopTimer.mark(m_beforeGroupDisjointSequenceTest);
+    m_historyFSM               .ifPresent((x)->x.runBeforeCommands()); m_loopTimer.mark(m_beforeHistoryFSM);
+    m_intake                   .ifPresent((x)->x.runBeforeCommands()); m_loopTimer.mark(m_beforeIntake);
+    m_mooreLikeFSMMultiCommand .ifPresent((x)->x.runBeforeCommands()); m_loopTimer.mark(m_beforeMooreLikeFSMMultiCommand);
+    m_robotSignals                              .runBeforeCommands();  m_loopTimer.mark(m_beforeRobotSignals);
   }
 
   /**
@@ -203,11 +269,16 @@ public class RobotContainer {
    * classes that have periodic outputs
    */
   public void runAfterCommands() {
-    m_achieveHueGoal           .ifPresent((x)->x.runAfterCommands());
-    m_groupDisjointSequenceTest.ifPresent((x)->x.runAfterCommands());
-    m_historyFSM               .ifPresent((x)->x.runAfterCommands());
-    m_intake                   .ifPresent((x)->x.runAfterCommands());
-    m_mooreLikeFSMMultiCommand .ifPresent((x)->x.runAfterCommands());
-    m_robotSignals                              .runAfterCommands();
+    m_achieveHueGoal           .ifPresent((x)->x.runAfterCommands()); m_loopTimer.mark(m_afterAchieveHueGoal);
+    m_groupDisjointSequenceTest.ifPresent((x)->x.runAfterCommands()); m_loopTimer.mark(m_afterGroupDisjointSequenceTest);
+    m_historyFSM               .ifPresent((x)->x.runAfterCommands()); m_loopTimer.mark(m_afterHistoryFSM);
+    m_intake                   .ifPresent((x)->x.runAfterCommands()); m_loopTimer.mark(m_afterIntake);
+    m_mooreLikeFSMMultiCommand .ifPresent((x)->x.runAfterCommands()); m_loopTimer.mark(m_afterMooreLikeFSMMultiCommand);
+    m_robotSignals                              .runAfterCommands();  m_loopTimer.mark(m_afterRobotSignals);
+    CommandProfiler                             .publish();           m_loopTimer.mark(m_afterCommandProfiler);
+    if (schedulerLog != null) schedulerLog.periodic();                m_loopTimer.mark(m_afterCommandSchedulerLog);
+    CommandEventBus.getInstance()               .periodic();          m_loopTimer.mark(m_afterCommandEventBus);
+    if (contentionAnalyzer != null) contentionAnalyzer.periodic();    m_loopTimer.mark(m_afterContentionAnalyzer);
+    BindingLatency                              .publish();           m_loopTimer.mark(m_afterBindingLatency);
   }
 }
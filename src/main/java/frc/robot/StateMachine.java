@@ -4,6 +4,7 @@ import static edu.wpi.first.util.ErrorMessages.requireNonNullParam;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BooleanSupplier;
 
 import edu.wpi.first.wpilibj.DigitalInput;
@@ -127,10 +128,36 @@ public class StateMachine extends Command {
   private State completedNormally = null; // flag for whenComplete() trigger
   private Command stateCommandAugmentedPrevious = null; // need to know if previous is still running so can be cancelled on state transition
   private int countSimultaneousTransitions = 0; // check for multiple simultaneous transition triggers
+  private State runningState = null; // to find the transition that started the next state
+  private volatile String currentState = "not running"; // for the metrics server; written by the robot thread
+  private static final List<StateMachine> stateMachines = new CopyOnWriteArrayList<>(); // all created for the metrics
 
   public StateMachine(String name) {
     requireNonNullParam(name, "name", "StateMachine");
     this.name = name;
+    stateMachines.add(this);
+  }
+
+  /**
+   * @return name of the running state or "not running"
+   */
+  public String getCurrentState() {
+    return currentState;
+  }
+
+  /**
+   * Write the current state of every StateMachine for the {@link MetricsServer}. Safe to call from
+   * another thread.
+   * 
+   * @param out the metrics text
+   */
+  public static void writeMetrics(StringBuilder out) {
+    MetricsServer.header(out, "robot_state_machine_state", "gauge", "1 for the current state of each StateMachine");
+    for (StateMachine stateMachine : stateMachines) {
+      out.append("robot_state_machine_state{machine=\"");
+      MetricsServer.label(out, stateMachine.name).append("\",state=\"");
+      MetricsServer.label(out, stateMachine.currentState).append("\"} 1\n");
+    }
   }
 
   /**
@@ -331,6 +358,7 @@ public class StateMachine extends Command {
   @Override
   public void initialize() {
     exitStateMachine = false;
+    runningState = null;
     initialState.stateCommandAugmented.schedule();
   }
 
@@ -354,6 +382,7 @@ public class StateMachine extends Command {
     if (stateCommandAugmentedPrevious != null) {
       stateCommandAugmentedPrevious.cancel();
     }
+    currentState = "not running";
   }
 
   /**
@@ -390,6 +419,15 @@ public class StateMachine extends Command {
      */
     @Override
     public void initialize() {
+      // latency from the previous state's transition condition to here
+      if (runningState != null) {
+        for (Transition transition : runningState.transitions) {
+          if (transition.nextState == state) {
+            transition.latency.initialized();
+          }
+        }
+      }
+
       events.clear(); // wipe the previous state's triggers
       if(stateCommandAugmentedPrevious != null) {
         stateCommandAugmentedPrevious.cancel(); // wipe the previous state in case it didn't finish itself
@@ -398,7 +436,8 @@ public class StateMachine extends Command {
       // if no transitions, that will be handled later as an exit but first need to run this state
       if ( ! state.transitions.isEmpty()) {
         for (Transition transition : state.transitions) { // add all the events for this state
-          var trigger = new Trigger (events, transition.triggeringEvent); // for .when(condition) and .whenComplete()
+          transition.latency.clear(); // an old true condition that didn't start this state
+          var trigger = new Trigger (events, transition.watchedEvent); // for .when(condition) and .whenComplete()
           trigger.onTrue(Commands.runOnce(()-> ++countSimultaneousTransitions).ignoringDisable(true)); // for check erroneous multiple identical conditions
           if (transition.nextState == null) { // condition for .exitStateMachine()
             trigger.onTrue(Commands.runOnce(()-> exitStateMachine = true).ignoringDisable(true)); // flag to exit (end) FSM
@@ -411,6 +450,8 @@ public class StateMachine extends Command {
 
       completedNormally = null; // reset flag for this new state as it has not yet completed normally 'cuz it's just starting
       stateCommandAugmentedPrevious = this; // for next state change this will be the previous state
+      runningState = state;
+      currentState = state.name;
 
       m_command.initialize(); // Wrapper is done with its fussing so tell original command to initialize
     }
@@ -496,6 +537,8 @@ public class StateMachine extends Command {
   private class Transition {
     State nextState;
     BooleanSupplier triggeringEvent;
+    BindingLatency.Binding latency; // condition true to next state initialize
+    BooleanSupplier watchedEvent; // triggeringEvent marking the latency
 
     /**
      * Define the FSM transition as current state + triggering event -> next state
@@ -506,6 +549,8 @@ public class StateMachine extends Command {
     private Transition(State toNextState, BooleanSupplier whenEvent) {
       this.nextState = toNextState;
       this.triggeringEvent = whenEvent; 
+      this.latency = BindingLatency.binding("StateMachine/" + name + "/to " + (toNextState != null ? toNextState.name : "exit"));
+      this.watchedEvent = latency.watch(whenEvent);
     }
   } // end class Transition
 
@@ -528,18 +573,21 @@ public class StateMachine extends Command {
       @Override
       public void initialize() {
           count = 0;
-          System.out.println(name + " " + count + " initialize");
+          ConsoleSink.begin().append(name).append(' ').append(count).append(" initialize");
+          ConsoleSink.println();
       }
   
       @Override
       public void execute() {
           ++count;
-          System.out.println(name + " " + count);
+          ConsoleSink.begin().append(name).append(' ').append(count);
+          ConsoleSink.println();
       }
       
       @Override
       public void end(boolean interrupt) {
-          System.out.println(name + " " + count + " end");
+          ConsoleSink.begin().append(name).append(' ').append(count).append(" end");
+          ConsoleSink.println();
       }
   
       @Override
@@ -3,6 +3,7 @@ package frc.robot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.WrapperCommand;
 import edu.wpi.first.wpilibj2.command.button.InternalButton;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 
 /**
  * A command group that runs a list of commands in parallel after the primary command completes.
@@ -32,9 +33,11 @@ import edu.wpi.first.wpilibj2.command.button.InternalButton;
 */
 
 public final class TriggeredDisjointParallelGroup extends WrapperCommand {
+  private static int m_groupCount; // numbers the groups for their latency names
 
   private final InternalButton m_trigger ;
   private final boolean continueOnInterrupt;
+  private final BindingLatency.Binding m_latency; // first command end to the rest initialize
 
   /**
    * When the first command in the list ends, all the rest of the commands run together immediately afterward.
@@ -55,11 +58,22 @@ public final class TriggeredDisjointParallelGroup extends WrapperCommand {
     super(commands[0]);
     this.continueOnInterrupt = continueOnInterrupt;
     m_trigger = new InternalButton();
+    // command names repeat so the group number makes the latency name unique
+    m_latency = BindingLatency.binding(
+        "TriggeredDisjointParallelGroup/" + m_groupCount++ + "/" + commands[0].getName());
+    // the trigger of the rest records the latency when it's polled right before they start
+    Trigger restTrigger = new Trigger(() -> {
+      boolean pressed = m_trigger.getAsBoolean();
+      if (pressed) {
+        m_latency.initialized(); // once per end; the other bindings' polls find nothing to record
+      }
+      return pressed;
+    });
     // first command [0] will be triggered externally by the user
     // and all the rest of the commands are assigned triggers
     // to run upon completion of the first command
     for (int i = 1; i < commands.length; i++) {
-      m_trigger.onTrue(commands[i]);
+      restTrigger.onTrue(commands[i]);
     }
   }
 
@@ -67,6 +81,7 @@ public final class TriggeredDisjointParallelGroup extends WrapperCommand {
   public void initialize() {
     
     m_trigger.setPressed(false);
+    m_latency.clear();
     // reset in case this is reused (maybe by sloppy use
     // of not restarting robot code and just changing modes and
     // returning to a previous mode but it's supported)      
@@ -79,6 +94,7 @@ public final class TriggeredDisjointParallelGroup extends WrapperCommand {
     m_command.end(interrupted);
     if (continueOnInterrupt || !interrupted) {
       m_trigger.setPressed(true); // indicate command ended and the rest of the commands are to be triggered     
+      m_latency.markTrue();
     }
   }
 }
@@ -49,16 +49,34 @@ test.schedule();
  * all time all of the subsystems its components require.
  */
 public final class TriggeredDisjointSequenceGroup extends WrapperCommand {
+  private static int m_groupCount; // numbers the sequences for their latency names
+
   private final InternalButton m_trigger;
+  private final BindingLatency.Binding m_latency; // this command end to the next command initialize
+  private final Trigger m_nextTrigger; // the trigger of the next command; records the latency
 
-  private TriggeredDisjointSequenceGroup(Command command) {
+  /**
+   * @param command the command to augment
+   * @param latencyName unique name of the latency of this command's end to the next command's start
+   *     - command names repeat so the sequence number and index are in it
+   */
+  private TriggeredDisjointSequenceGroup(Command command, String latencyName) {
     super(command);
     m_trigger = new InternalButton();
+    m_latency = BindingLatency.binding(latencyName);
+    m_nextTrigger = new Trigger(() -> {
+      boolean pressed = m_trigger.getAsBoolean();
+      if (pressed) {
+        m_latency.initialized(); // polled right before the bound command starts; once per end
+      }
+      return pressed;
+    });
   }
 
   @Override
   public void initialize() {
     m_trigger.setPressed(false);
+    m_latency.clear();
     // reset in case this sequence is reused (maybe by sloppy use
     // of not restarting robot code and just changing modes and
     // returning to a previous mode but it's supported)
@@ -69,10 +87,11 @@ public final class TriggeredDisjointSequenceGroup extends WrapperCommand {
   public void end(boolean interrupted) {
     m_command.end(interrupted);
     m_trigger.setPressed(true); // indicate command ended and the next command is to be triggered
+    m_latency.markTrue();
   }
 
   private Trigger getTrigger() {
-    return m_trigger;
+    return m_nextTrigger;
   }
 
   /**
@@ -106,6 +125,7 @@ public final class TriggeredDisjointSequenceGroup extends WrapperCommand {
     // First command doesn't have a previous and last command doesn't have a next command.
     Command first = null;
     Trigger previousTrigger = null;
+    int group = m_groupCount++;
     int i = 0;
 
     for (Command command : commands) {
@@ -117,7 +137,8 @@ public final class TriggeredDisjointSequenceGroup extends WrapperCommand {
       TriggeredDisjointSequenceGroup augmented = null;
 
       if (!atLastCommand) {
-        augmented = new TriggeredDisjointSequenceGroup(command); // augment it with a trigger
+        augmented = new TriggeredDisjointSequenceGroup(command, // augment it with a trigger
+            "TriggeredDisjointSequenceGroup/" + group + "/" + i + "/" + command.getName());
       }
 
       if (atFirstCommand) {
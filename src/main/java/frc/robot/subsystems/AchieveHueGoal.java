@@ -73,6 +73,7 @@ import static edu.wpi.first.units.Units.Seconds;
 import static edu.wpi.first.wpilibj2.command.Commands.sequence;
 import static edu.wpi.first.wpilibj2.command.Commands.waitSeconds;
 
+import frc.robot.HuePalette;
 import frc.robot.subsystems.RobotSignals.LEDView;
 
 import edu.wpi.first.math.MathUtil;
@@ -93,6 +94,7 @@ public class AchieveHueGoal extends SubsystemBase {
   private final PIDController m_hueController;
   private double m_currentStateHue; // both the input and output of the controller
                                   // (simple example without the need of separate input and output)
+  private static final HuePalette m_palette = HuePalette.of(200, 200); // current state colors
   private LEDPattern m_notSeekingGoalSignal = LEDPattern.solid(Color.kGray); // controller off signal
    // initial state signal then continuously controller output signal to display on LEDs
   private LEDPattern m_currentStateSignal = m_notSeekingGoalSignal;
@@ -146,7 +148,7 @@ public class AchieveHueGoal extends SubsystemBase {
                           + m_hueController.calculate(m_currentStateHue, hueSetpoint.getAsDouble()),
                         minimumHue, maximumHue);
                 m_currentStateSignal = // LED color for the current state; default command displays
-                    LEDPattern.solid(Color.fromHSV((int) m_currentStateHue, 200, 200));
+                    m_palette.solid((int) m_currentStateHue); // precomputed - no allocation
               }
             )
           
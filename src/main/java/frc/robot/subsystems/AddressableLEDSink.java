@@ -0,0 +1,45 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.AddressableLED;
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.LEDReader;
+
+/**
+ * The addressable LED strip on a PWM port
+ *
+ * <p>The HAL only takes an AddressableLEDBuffer so any other buffer is copied into one first.
+ */
+public class AddressableLEDSink implements LEDSink {
+  private final AddressableLED m_strip;
+  private AddressableLEDBuffer m_copy; // for a buffer that isn't an AddressableLEDBuffer
+
+  /**
+   * @param pwmPort PWM port of the strip
+   */
+  public AddressableLEDSink(int pwmPort) {
+    m_strip = new AddressableLED(pwmPort);
+  }
+
+  @Override
+  public void start(int length) {
+    m_copy = new AddressableLEDBuffer(length);
+    m_strip.setLength(length);
+    m_strip.start();
+  }
+
+  @Override
+  public void write(LEDReader buffer) {
+    if (buffer instanceof AddressableLEDBuffer) {
+      m_strip.setData((AddressableLEDBuffer) buffer); // send the buffer to the LEDs
+      return;
+    }
+    if (buffer instanceof DirectLEDBuffer) {
+      ((DirectLEDBuffer) buffer).copyTo(m_copy);
+    } else {
+      for (int led = 0; led < m_copy.getLength(); led++) {
+        m_copy.setRGB(led, buffer.getRed(led), buffer.getGreen(led), buffer.getBlue(led));
+      }
+    }
+    m_strip.setData(m_copy);
+  }
+}
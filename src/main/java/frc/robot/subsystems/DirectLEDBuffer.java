@@ -0,0 +1,196 @@
+package frc.robot.subsystems;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.LEDReader;
+import edu.wpi.first.wpilibj.LEDWriter;
+
+/**
+ * An LED buffer in native (direct) memory in the order the LEDs are sent - blue, green, red, and a
+ * pad byte per LED, the same as AddressableLEDBuffer's array.
+ *
+ * <p>Views and patterns write straight into the memory an output can take without another copy -
+ * {@link #getByteBuffer()} for a channel or a native call. MemoryLEDSink and FileLEDSink take it
+ * with one bulk copy; the AddressableLED HAL only takes an AddressableLEDBuffer so
+ * AddressableLEDSink still copies it LED by LED. Whole LEDs are one int so fills and
+ * copies of ranges are bulk operations on the memory instead of 3 calls per LED.
+ *
+ * <p>RobotSignals uses it in place of its AddressableLEDBuffer when asked - the views then are
+ * {@link View}s of this buffer.
+ */
+public class DirectLEDBuffer implements LEDReader, LEDWriter {
+  private static final int m_bytesPerLED = 4;
+
+  private final ByteBuffer m_data;
+  private final ByteBuffer m_readOnly;
+  private final int m_length;
+
+  /**
+   * @param length number of LEDs
+   */
+  public DirectLEDBuffer(int length) {
+    m_length = length;
+    m_data = ByteBuffer.allocateDirect(length * m_bytesPerLED).order(ByteOrder.BIG_ENDIAN);
+    m_readOnly = m_data.asReadOnlyBuffer();
+  }
+
+  private static int pack(int r, int g, int b) {
+    return (b & 0xFF) << 24 | (g & 0xFF) << 16 | (r & 0xFF) << 8; // B G R pad
+  }
+
+  @Override
+  public int getLength() {
+    return m_length;
+  }
+
+  @Override
+  public int getRed(int index) {
+    return m_data.get(index * m_bytesPerLED + 2) & 0xFF;
+  }
+
+  @Override
+  public int getGreen(int index) {
+    return m_data.get(index * m_bytesPerLED + 1) & 0xFF;
+  }
+
+  @Override
+  public int getBlue(int index) {
+    return m_data.get(index * m_bytesPerLED) & 0xFF;
+  }
+
+  @Override
+  public void setRGB(int index, int r, int g, int b) {
+    m_data.putInt(index * m_bytesPerLED, pack(r, g, b));
+  }
+
+  /**
+   * Set all the LEDs to a color
+   */
+  public void fill(int r, int g, int b) {
+    fill(0, m_length, r, g, b);
+  }
+
+  /**
+   * Set a range of LEDs to a color
+   *
+   * @param first first LED
+   * @param count number of LEDs
+   */
+  public void fill(int first, int count, int r, int g, int b) {
+    int packed = pack(r, g, b);
+    int end = (first + count) * m_bytesPerLED;
+    for (int offset = first * m_bytesPerLED; offset < end; offset += m_bytesPerLED) {
+      m_data.putInt(offset, packed);
+    }
+  }
+
+  /**
+   * Copy a range of LEDs from another (or this) buffer - one bulk copy of the memory
+   *
+   * @param source buffer to copy from
+   * @param sourceFirst first LED of the source
+   * @param first first LED of this buffer
+   * @param count number of LEDs
+   */
+  public void copy(DirectLEDBuffer source, int sourceFirst, int first, int count) {
+    m_data.put(first * m_bytesPerLED, source.m_data, sourceFirst * m_bytesPerLED, count * m_bytesPerLED);
+  }
+
+  /**
+   * Copy all the LEDs to an AddressableLEDBuffer of at least the same length - for an output that
+   * only takes one
+   *
+   * @param buffer the copy
+   */
+  public void copyTo(AddressableLEDBuffer buffer) {
+    for (int led = 0, offset = 0; led < m_length; led++, offset += m_bytesPerLED) {
+      buffer.setRGB(led,
+          m_data.get(offset + 2) & 0xFF, m_data.get(offset + 1) & 0xFF, m_data.get(offset) & 0xFF);
+    }
+  }
+
+  /**
+   * The memory of the LEDs - 4 bytes per LED in send order. Read only; shared so rewind it before
+   * use and don't keep the position.
+   *
+   * @return the memory
+   */
+  public ByteBuffer getByteBuffer() {
+    return m_readOnly;
+  }
+
+  /**
+   * Create a view of a range of LEDs. The view is reversed if the first LED is after the last LED;
+   * writing front-to-back in the view will write in the back-to-front direction on this buffer.
+   *
+   * @param first first LED inclusive
+   * @param last last LED inclusive
+   * @return the view
+   */
+  public View createView(int first, int last) {
+    if (first < 0 || last < 0 || first >= m_length || last >= m_length) {
+      throw new IllegalArgumentException(
+          "DirectLEDBuffer view " + first + " to " + last + " is outside the " + m_length + " LEDs");
+    }
+    return new View(first, last);
+  }
+
+  /**
+   * A range of the buffer's LEDs
+   */
+  public final class View implements LEDReader, LEDWriter {
+    private final int m_first;
+    private final int m_low;
+    private final int m_length;
+    private final boolean m_reversed;
+
+    private View(int first, int last) {
+      m_first = first;
+      m_low = Math.min(first, last);
+      m_length = Math.abs(last - first) + 1;
+      m_reversed = first > last;
+    }
+
+    private int bufferIndex(int index) {
+      if (index < 0 || index >= m_length) {
+        throw new IndexOutOfBoundsException("DirectLEDBuffer view index " + index + " is outside the "
+            + m_length + " LEDs");
+      }
+      return m_reversed ? m_first - index : m_first + index;
+    }
+
+    @Override
+    public int getLength() {
+      return m_length;
+    }
+
+    @Override
+    public int getRed(int index) {
+      return DirectLEDBuffer.this.getRed(bufferIndex(index));
+    }
+
+    @Override
+    public int getGreen(int index) {
+      return DirectLEDBuffer.this.getGreen(bufferIndex(index));
+    }
+
+    @Override
+    public int getBlue(int index) {
+      return DirectLEDBuffer.this.getBlue(bufferIndex(index));
+    }
+
+    @Override
+    public void setRGB(int index, int r, int g, int b) {
+      DirectLEDBuffer.this.setRGB(bufferIndex(index), r, g, b);
+    }
+
+    /**
+     * Set all the view's LEDs to a color
+     */
+    public void fill(int r, int g, int b) {
+      DirectLEDBuffer.this.fill(m_low, m_length, r, g, b);
+    }
+  }
+}
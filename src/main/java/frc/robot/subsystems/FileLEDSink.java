@@ -0,0 +1,123 @@
+package frc.robot.subsystems;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+import edu.wpi.first.wpilibj.LEDReader;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Records every frame to a file - no strip - for soak tests and to look at the signals afterwards.
+ *
+ * <p>The file is the number of LEDs (int) then for each frame the time in microseconds (long) and
+ * the LEDs in send order (blue, green, red, pad - 4 bytes per LED), big-endian as DataOutputStream
+ * writes. A {@link DirectLEDBuffer}'s frame is one bulk copy of its memory. The time is the FPGA time
+ * unless another clock is given.
+ *
+ * <p>The writes are buffered and flushed every {@value #m_flushPeriodUs} microseconds of the clock
+ * so a robot program that's killed loses little. {@link #close()} flushes the rest; it's also run
+ * when the JVM shuts down.
+ *
+ * <p>If the file can't be written an Alert is shown and the frames are dropped.
+ */
+public class FileLEDSink implements LEDSink, AutoCloseable {
+  private static final long m_flushPeriodUs = 1_000_000;
+
+  private final String m_path;
+  private final LongSupplier m_timeUs;
+  private DataOutputStream m_out; // guarded by this - written by the sending thread, closed at shutdown
+  private byte[] m_frame;
+  private int m_length;
+  private long m_lastFlushUs;
+
+  /**
+   * @param path file to create or replace
+   */
+  public FileLEDSink(String path) {
+    this(path, RobotController::getFPGATime);
+  }
+
+  /**
+   * @param path file to create or replace
+   * @param microseconds clock of the frames' times and the flushes
+   */
+  public FileLEDSink(String path, LongSupplier microseconds) {
+    m_path = path;
+    m_timeUs = microseconds;
+  }
+
+  @Override
+  public synchronized void start(int length) {
+    m_length = length;
+    m_frame = new byte[length * 4];
+    try {
+      m_out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(m_path), 64 * 1024));
+      m_out.writeInt(length);
+    } catch (IOException e) {
+      failed(e);
+      return;
+    }
+    m_lastFlushUs = m_timeUs.getAsLong();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::close, "FileLEDSink close"));
+  }
+
+  @Override
+  public synchronized void write(LEDReader buffer) {
+    if (m_out == null) {
+      return;
+    }
+    if (buffer instanceof DirectLEDBuffer) {
+      ((DirectLEDBuffer) buffer).getByteBuffer().get(0, m_frame); // same layout
+    } else {
+      for (int led = 0, i = 0; led < m_length; led++, i += 4) {
+        m_frame[i] = (byte) buffer.getBlue(led);
+        m_frame[i + 1] = (byte) buffer.getGreen(led);
+        m_frame[i + 2] = (byte) buffer.getRed(led);
+      }
+    }
+    long now = m_timeUs.getAsLong();
+    try {
+      m_out.writeLong(now);
+      m_out.write(m_frame);
+      if (now - m_lastFlushUs >= m_flushPeriodUs) {
+        m_lastFlushUs = now;
+        m_out.flush();
+      }
+    } catch (IOException e) {
+      failed(e);
+    }
+  }
+
+  /**
+   * Flush and close the file
+   */
+  @Override
+  public synchronized void close() {
+    if (m_out == null) {
+      return;
+    }
+    try {
+      m_out.close();
+    } catch (IOException e) {
+      failed(e);
+    }
+    m_out = null;
+  }
+
+  private void failed(IOException e) {
+    new Alert("LED frames not written to " + m_path + ": " + e.getMessage(), AlertType.kWarning).set(true);
+    if (m_out != null) {
+      try {
+        m_out.close();
+      } catch (IOException ignored) {
+        // already failed
+      }
+    }
+    m_out = null;
+  }
+}
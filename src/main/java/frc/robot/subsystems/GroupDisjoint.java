@@ -7,6 +7,8 @@ package frc.robot.subsystems;
 
 import static edu.wpi.first.units.Units.Seconds;
 
+import frc.robot.ConsoleSink;
+
 import edu.wpi.first.units.measure.Time;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -76,9 +78,10 @@ public class GroupDisjoint extends SubsystemBase {
     setDefaultCommand(m_defaultCommand);
   }
 
-  private final Command m_defaultCommand = run(() -> System.out.print(m_resourceID + "d"));
+  private final Command m_defaultCommand = run(() -> ConsoleSink.print(m_resourceID, "d"));
   // note that the Commands.print("testing " + testNumber) does not require a subsystem which
-  // is needed for this test so System.out.print() was used more directly.
+  // is needed for this test so ConsoleSink.print() was used more directly. It doesn't wait for the
+  // console so printing every iteration doesn't distort the timing of the tests.
 
   /**
    * Command Factory for GroupDisjointTest subsystems
@@ -115,7 +118,7 @@ public class GroupDisjoint extends SubsystemBase {
 
     @Override
     public void execute() {
-      System.out.print(m_resourceID + m_testNumber);
+      ConsoleSink.print(m_resourceID, m_testNumber);
     }
 
     @Override
@@ -56,11 +56,12 @@ package frc.robot.subsystems;
 import static edu.wpi.first.units.Units.Seconds;
 import static edu.wpi.first.wpilibj2.command.Commands.deadline;
 import static edu.wpi.first.wpilibj2.command.Commands.parallel;
-import static edu.wpi.first.wpilibj2.command.Commands.print;
 import static edu.wpi.first.wpilibj2.command.Commands.race;
 import static edu.wpi.first.wpilibj2.command.Commands.sequence;
 import static edu.wpi.first.wpilibj2.command.Commands.waitSeconds;
 
+import frc.robot.ConsoleSink;
+import frc.robot.LeasedSequenceGroup;
 import frc.robot.TriggeredDisjointSequenceGroup;
 
 import edu.wpi.first.wpilibj2.command.Command;
@@ -137,6 +138,13 @@ public class GroupDisjointSequenceTest extends SubsystemBase {
             waitSeconds(0.1),
             m_groupDisjoint[m_a].testDuration(2, Seconds.of(0.)));
 
+    // Leased sequence holds the subsystem only while the command that needs it runs - no proxies.
+    final Command testLeasedSequence =
+        new LeasedSequenceGroup(
+            m_groupDisjoint[m_a].testDuration(1, Seconds.of(0.)),
+            waitSeconds(0.1),
+            m_groupDisjoint[m_a].testDuration(2, Seconds.of(0.)));
+
     final Command testRepeatingSequence =
         sequence(
                 m_groupDisjoint[m_a].testDuration(1, Seconds.of(0.05)),
@@ -153,6 +161,19 @@ public class GroupDisjointSequenceTest extends SubsystemBase {
             .repeatedly()
             .withTimeout(0.5);
 
+    // No proxy so the RepeatCommand bug doesn't apply. An aborted (lease refused or lost) group
+    // finishes normally so stop repeating it explicitly.
+    final LeasedSequenceGroup leasedRepeatingSequence =
+        new LeasedSequenceGroup(
+                m_groupDisjoint[m_a].testDuration(1, Seconds.of(0.05)),
+                m_groupDisjoint[m_b].testDuration(1, Seconds.of(0.05)),
+                m_groupDisjoint[m_c].testDuration(1, Seconds.of(0.05)));
+    final Command testLeasedRepeatingSequence =
+        leasedRepeatingSequence
+            .repeatedly()
+            .until(leasedRepeatingSequence::isAborted)
+            .withTimeout(0.5);
+
     // final Command testDisjointRepeatingSequenceBlocked =
     //   repeatingDisjointSequence(
     //     m_groupDisjoint[m_a].testDuration(1, Seconds.of(0.05)),
@@ -271,42 +292,48 @@ public class GroupDisjointSequenceTest extends SubsystemBase {
             m_groupDisjoint[m_c].setDefaultCommand();
           }
       ),
-      print("\nSTART testSequence"),
+      consolePrint("\nSTART testSequence"),
       testSequence,
-      print("\nEND testSequence"),
-      print("\nSTART testDisjointSequence"),
+      consolePrint("\nEND testSequence"),
+      consolePrint("\nSTART testDisjointSequence"),
       testDisjointSequence,
-      print("\nEND testDisjointSequence"),
-      print("\nSTART testRepeatingSequence"),
+      consolePrint("\nEND testDisjointSequence"),
+      consolePrint("\nSTART testLeasedSequence"),
+      testLeasedSequence,
+      consolePrint("\nEND testLeasedSequence"),
+      consolePrint("\nSTART testRepeatingSequence"),
       testRepeatingSequence,
-      print("\nEND testRepeatingSequence"),
-      print("\nSTART testDisjointRepeatingSequence - incorrect results - library bug"),
+      consolePrint("\nEND testRepeatingSequence"),
+      consolePrint("\nSTART testDisjointRepeatingSequence - incorrect results - library bug"),
       testDisjointRepeatingSequence,
-      print("\nEND testDisjointRepeatingSequence - incorrect results - library bug"),
-      //  print("\nSTART testDisjointRepeatingSequence - blocked - not supported"),
+      consolePrint("\nEND testDisjointRepeatingSequence - incorrect results - library bug"),
+      consolePrint("\nSTART testLeasedRepeatingSequence"),
+      testLeasedRepeatingSequence,
+      consolePrint("\nEND testLeasedRepeatingSequence"),
+      //  consolePrint("\nSTART testDisjointRepeatingSequence - blocked - not supported"),
       //    testDisjointRepeatingSequenceBlocked,
-      //     print("\nEND testDisjointRepeatingSequence - blocked - not supported"),
-      print("\nSTART testParallel"),
+      //     consolePrint("\nEND testDisjointRepeatingSequence - blocked - not supported"),
+      consolePrint("\nSTART testParallel"),
       testParallel,
-      print("\nEND testParallel"),
-      print("\nSTART testDisjointParallel"),
+      consolePrint("\nEND testParallel"),
+      consolePrint("\nSTART testDisjointParallel"),
       testDisjointParallel,
-      print("\nEND testDisjointParallel"),
-      print("\nSTART testManualDisjointParallel"),
+      consolePrint("\nEND testDisjointParallel"),
+      consolePrint("\nSTART testManualDisjointParallel"),
       testManualDisjointParallel,
-      print("\nEND testManualDisjointParallel"),
-      print("\nSTART testDeadlineParallel"),
+      consolePrint("\nEND testManualDisjointParallel"),
+      consolePrint("\nSTART testDeadlineParallel"),
       testDeadline,
-      print("\nEND testDeadlineParallel"),
-      print("\nSTART testDisjointDeadlineParallel"),
+      consolePrint("\nEND testDeadlineParallel"),
+      consolePrint("\nSTART testDisjointDeadlineParallel"),
       testDisjointDeadline,
-      print("\nEND testDisjointDeadlineParallel"),
-      print("\nSTART testRaceParallel"),
+      consolePrint("\nEND testDisjointDeadlineParallel"),
+      consolePrint("\nSTART testRaceParallel"),
       testRace,
-      print("\nEND testRaceParallel"),
-      print("\nSTART testDisjointRaceParallel"),
+      consolePrint("\nEND testRaceParallel"),
+      consolePrint("\nSTART testDisjointRaceParallel"),
       testDisjointRace,
-      print("\nEND testDisjointRaceParallel"),
+      consolePrint("\nEND testDisjointRaceParallel"),
       Commands.runOnce( // This is the last command to be run in sequence and it is disjointed the
               // same as all the rest. Any requirements are within the runOnce only and not applied
               // to the entire sequence. As the last command any requirements might be irrelevant
@@ -337,8 +364,8 @@ public class GroupDisjointSequenceTest extends SubsystemBase {
     // the first command and not the entire sequence. No requirements created in this example.
     if (useTriggeredJob) {
       return TriggeredDisjointSequenceGroup.prepare(allTests)
-            .beforeStarting(print("** starting triggered disjoint sequence tests"))
-            .finallyDo(interrupted->System.out.println(
+            .beforeStarting(consolePrint("** starting triggered disjoint sequence tests"))
+            .finallyDo(interrupted->ConsoleSink.println(
                 "** the end of triggered disjoint sequence tests interrupted flag = "
                 + interrupted)
             );
@@ -346,8 +373,8 @@ public class GroupDisjointSequenceTest extends SubsystemBase {
     // Requirements added to the proxy group disjoint sequence are applied to the entire wrapped
     // sequence. Requirements come from the beforeStarting runOnce within this subsystem.
       return disjointSequence(allTests) // group wrapper command represents all the commands
-            .beforeStarting(runOnce(()-> System.out.println("** starting disjoint sequence tests")))
-            .finallyDo(interrupted->System.out.println(
+            .beforeStarting(runOnce(()-> ConsoleSink.println("** starting disjoint sequence tests")))
+            .finallyDo(interrupted->ConsoleSink.println(
                 "** the end of disjoint sequence tests interrupted flag = "
                 + interrupted)
             );
@@ -494,6 +521,18 @@ public class GroupDisjointSequenceTest extends SubsystemBase {
     return deadline(deadline, proxyAll(otherCommands));
   }
 
+  /**
+   * Print a line through the {@link ConsoleSink} like GroupDisjoint does so the markers stay in
+   * order with the test output. Commands.print() goes straight to System.out and its lines appear
+   * ahead of the queued lines.
+   *
+   * @param message the line
+   * @return command that prints the line; runs when disabled like Commands.print()
+   */
+  public static Command consolePrint(String message) {
+    return Commands.runOnce(() -> ConsoleSink.println(message)).ignoringDisable(true);
+  }
+
   /**
    * Maps an array of commands by adding proxy to every element that has requirements using {@link
    * Command#asProxy()}.
@@ -21,6 +21,8 @@ package frc.robot.subsystems;
 import static edu.wpi.first.units.Units.Milliseconds;
 import static edu.wpi.first.units.Units.Seconds;
 
+import frc.robot.CommandProfiler;
+import frc.robot.HuePalette;
 import frc.robot.subsystems.RobotSignals.LEDView;
 
 import edu.wpi.first.units.measure.Time;
@@ -53,6 +55,7 @@ public class HistoryFSM extends SubsystemBase {
 
   // Time data is saved for how long a color is to persist in the display.
 
+  private static final HuePalette m_palette = HuePalette.of(200, 200);
   private static final int m_computerColorWheel = 180; // max count of hues numbered 0 to 179
   // list of the last times of all the colors so try not to repeat for a long time so repeats are
   // rare
@@ -109,10 +112,10 @@ public class HistoryFSM extends SubsystemBase {
    * @return Command to do it
    */
   public Command newColor() {
-    return
+    return CommandProfiler.profile(
       runOnce(this::getHSV) // new color
       .andThen(runOnce(this::setNextTime) // next time for new color
-      ).withName("History FSM Sequence");
+      ).withName("History FSM Sequence"));
   }
 
   /**
@@ -142,7 +145,7 @@ public class HistoryFSM extends SubsystemBase {
       // limit attempts - no infinite loops allowed
     } while (++loopCounter < loopCounterLimit);
 
-    m_persistentPatternDemo = LEDPattern.solid(Color.fromHSV(randomHue, 200, 200));
+    m_persistentPatternDemo = m_palette.solid(randomHue);
 
     // Set and refresh the color could be done many ways.
     // Here it's set once and assumed to persist by some other means than this method.
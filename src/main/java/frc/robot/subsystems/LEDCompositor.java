@@ -0,0 +1,237 @@
+package frc.robot.subsystems;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.AddressableLEDBufferView;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.LEDPattern;
+import edu.wpi.first.wpilibj.LEDWriter;
+
+/**
+ * Render the LED views' patterns on a background thread.
+ *
+ * <p>The view commands only select a pattern for their view (a field write). Once per loop
+ * {@link RobotSignals} hands the loop's selections over with {@link #publish()} and the compositor
+ * thread renders them into its canvas - the same buffer-is-not-cleared rule as rendering directly;
+ * a view without a selection keeps its LEDs. A loop without a selection for a view doesn't replace
+ * the view's last selection and each view remembers the loop of its last selection, so a selection
+ * made in one loop only (setSignalOnce(), the last blend after a layer is cleared) is rendered even
+ * if the renderer skipped that loop. The canvas is copied to a back buffer that's swapped for
+ * the ready buffer atomically. {@link #takeFrame()} swaps the newest ready frame to the front for
+ * RobotSignals to send to the strip.
+ *
+ * <p>Three buffers (back, ready, front) so neither thread ever waits for the other: the compositor
+ * always has a back buffer to fill and the robot thread always has a complete front buffer to send.
+ * Every frame sent is one loop's selections rendered together. The frame sent is the previous loop's
+ * - the newest one the compositor finished.
+ *
+ * <p>The only lock is the handoff of the selections - a copy of one reference per view.
+ *
+ * <p>Without its own thread the compositor renders the latest selections whenever
+ * {@link #renderLatest()} is called - RobotSignals' Notifier renders and takes the frames at the LED
+ * frame rate on its thread. "Compositor thread" below is then the Notifier thread.
+ */
+class LEDCompositor {
+  private static final int FRESH = 4; // ready buffer hasn't been taken; the buffer index is bits 0-1
+
+  private final AddressableLEDBuffer m_canvas; // rendering thread only - compositor or Notifier
+  private final AddressableLEDBufferView[] m_canvasViews;
+  private final LEDWriter[] m_changeWriters;
+  private boolean m_canvasChanged = true; // compositor thread only; changed since the last swap
+
+  private final AddressableLEDBuffer[] m_buffers = new AddressableLEDBuffer[3];
+  private final boolean[] m_changed = new boolean[3]; // frame differs from the previous frame
+  private final AtomicInteger m_ready = new AtomicInteger(1); // index | FRESH
+  private int m_back = 0; // compositor thread only
+  private int m_front = 2; // taking thread only
+
+  private final LEDPattern[] m_selections; // robot thread - this loop's selections
+  private final LEDPattern[] m_published; // guarded by m_lock; each view's last selection
+  private final long[] m_selectedFrame; // guarded by m_lock; loop of each view's last selection
+  private final LEDPattern[] m_rendering; // compositor thread only
+  private final Object m_lock = new Object();
+  private long m_publishedFrame; // guarded by m_lock
+  private long m_renderedFrame; // guarded by m_lock; last loop taken for rendering
+
+  private final Alert m_failed = new Alert("", AlertType.kError); // taking thread
+  private volatile String m_failure; // compositor thread reports a pattern exception
+
+  /**
+   * Create the buffers and start the thread
+   *
+   * @param length number of LEDs
+   * @param first first LED of each view
+   * @param last last LED of each view
+   * @param ownThread true to render each published loop on the compositor's thread; false to render
+   *     the latest selections when {@link #renderLatest()} is called - by RobotSignals' Notifier
+   */
+  LEDCompositor(int length, int[] first, int[] last, boolean ownThread) {
+    m_canvas = new AddressableLEDBuffer(length);
+    for (int i = 0; i < m_buffers.length; i++) {
+      m_buffers[i] = new AddressableLEDBuffer(length);
+    }
+
+    int views = first.length;
+    m_canvasViews = new AddressableLEDBufferView[views];
+    m_changeWriters = new LEDWriter[views];
+    for (int view = 0; view < views; view++) {
+      AddressableLEDBufferView canvasView = m_canvas.createView(first[view], last[view]);
+      m_canvasViews[view] = canvasView;
+      m_changeWriters[view] = (index, r, g, b) -> {
+        if (canvasView.getRed(index) != r || canvasView.getGreen(index) != g || canvasView.getBlue(index) != b) {
+          canvasView.setRGB(index, r, g, b);
+          m_canvasChanged = true;
+        }
+      };
+    }
+    m_selections = new LEDPattern[views];
+    m_published = new LEDPattern[views];
+    m_selectedFrame = new long[views];
+    m_rendering = new LEDPattern[views];
+
+    if (!ownThread) {
+      return;
+    }
+    Thread thread = new Thread(this::run, "LEDCompositor");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.NORM_PRIORITY - 1); // below the robot thread
+    thread.start();
+  }
+
+  /**
+   * Select the pattern of a view for this loop. Robot thread.
+   *
+   * @param view index of the view
+   * @param pattern pattern to render
+   */
+  void select(int view, LEDPattern pattern) {
+    m_selections[view] = pattern;
+  }
+
+  /**
+   * Hand this loop's selections to the compositor and start the next loop's. Robot thread.
+   */
+  void publish() {
+    synchronized (m_lock) {
+      m_publishedFrame++;
+      for (int view = 0; view < m_selections.length; view++) {
+        if (m_selections[view] != null) { // no selection keeps the view's last one
+          m_published[view] = m_selections[view];
+          m_selectedFrame[view] = m_publishedFrame;
+        }
+      }
+      m_lock.notify();
+    }
+    Arrays.fill(m_selections, null);
+  }
+
+  /**
+   * Take the newest finished frame. Robot thread - or the Notifier thread if it renders.
+   *
+   * @return the frame - valid until the next take - or null if none finished since the last take
+   */
+  AddressableLEDBuffer takeFrame() {
+    String failure = m_failure;
+    if (failure != null) {
+      m_failure = null;
+      m_failed.setText(failure);
+      m_failed.set(true);
+    }
+    if ((m_ready.get() & FRESH) == 0) {
+      return null;
+    }
+    m_front = m_ready.getAndSet(m_front) & 3;
+    return m_buffers[m_front];
+  }
+
+  /**
+   * @return true if the frame last taken differs from the frame taken before it
+   */
+  boolean isFrameChanged() {
+    return m_changed[m_front];
+  }
+
+  /**
+   * Compositor thread
+   */
+  private void run() {
+    while (true) {
+      synchronized (m_lock) {
+        while (m_publishedFrame == m_renderedFrame) {
+          try {
+            m_lock.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        take(false);
+      }
+      render();
+    }
+  }
+
+  /**
+   * Render the selections published since the last render and the latest loop's selections again -
+   * so animations move at the caller's rate. Only without the compositor's own thread.
+   */
+  void renderLatest() {
+    synchronized (m_lock) {
+      take(true);
+    }
+    render();
+  }
+
+  /**
+   * Copy the selections to render - those published since the last take and, if asked, the latest
+   * loop's again. Holding m_lock.
+   */
+  private void take(boolean latestAgain) {
+    for (int view = 0; view < m_published.length; view++) {
+      long frame = m_selectedFrame[view];
+      if (frame > m_renderedFrame || (latestAgain && frame == m_publishedFrame && frame != 0)) {
+        m_rendering[view] = m_published[view];
+      }
+    }
+    m_renderedFrame = m_publishedFrame;
+  }
+
+  /**
+   * Render the selections copied for rendering and make the frame ready
+   */
+  private void render() {
+    for (int view = 0; view < m_rendering.length; view++) {
+      if (m_rendering[view] == null) {
+        continue; // no command selected a pattern; keep the LEDs
+      }
+      try {
+        m_rendering[view].applyTo(m_canvasViews[view], m_changeWriters[view]);
+      } catch (RuntimeException e) {
+        m_failure = "LEDCompositor pattern failed: " + e; // shown at the next take
+      }
+      m_rendering[view] = null; // don't hold the pattern
+    }
+    swap();
+  }
+
+  /**
+   * Copy the canvas to the back buffer and make it the ready buffer. Compositor thread.
+   */
+  private void swap() {
+    AddressableLEDBuffer back = m_buffers[m_back];
+    for (int led = 0; led < m_canvas.getLength(); led++) {
+      back.setRGB(led, m_canvas.getRed(led), m_canvas.getGreen(led), m_canvas.getBlue(led));
+    }
+
+    int previous;
+    do {
+      previous = m_ready.get();
+      // a changed frame the robot thread never took makes this frame changed, too
+      m_changed[m_back] = m_canvasChanged || ((previous & FRESH) != 0 && m_changed[previous & 3]);
+    } while (!m_ready.compareAndSet(previous, m_back | FRESH));
+    m_back = previous & 3;
+    m_canvasChanged = false;
+  }
+}
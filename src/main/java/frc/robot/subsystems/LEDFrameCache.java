@@ -0,0 +1,242 @@
+package frc.robot.subsystems;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.LEDPattern;
+import edu.wpi.first.wpilibj.LEDReader;
+import edu.wpi.first.wpilibj.LEDWriter;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Remember the rendered frames of patterns that are the same every time they are applied so they
+ * are computed once instead of every loop.
+ *
+ * <p>Most of the signals are a function of only the pattern, the length of the view, and (for
+ * blink and breathe) where in its cycle the time is. The scanner FSMs' eight smeared patterns, the
+ * default commands' breathing, and the autonomous blink all run their chain of pattern lambdas,
+ * Color conversions and all, for every LED of every loop to make the same frames over and over.
+ *
+ * <p>Opt in by wrapping the pattern once at startup:
+ * <ul>
+ * <li>{@link #cached(LEDPattern)} - a still pattern; one frame per view length
+ * <li>{@link #cached(LEDPattern, double, int)} - an animation that repeats every cycle; the cycle is
+ * cut into a number of time buckets and each bucket's frame is the pattern at the time the bucket
+ * was first shown
+ * </ul>
+ * The wrapper is an LEDPattern so it's used anywhere the pattern was. A cache miss renders the
+ * pattern into a packed RGB byte[] (3 bytes per LED) and a hit copies the bytes straight to the
+ * writer - one setRGB per LED and no pattern code.
+ *
+ * <p>Frames are kept by pattern identity (not equals), view length, and time bucket. When there are
+ * more than the capacity the least recently used frame is dropped.
+ *
+ * <p>Don't cache a pattern that reads the LEDs it's drawing over or that changes by anything other
+ * than the time - a supplier's pattern or one closing over a changing field. The frame is rendered
+ * onto black, not onto the view.
+ *
+ * <p>Use from one rendering thread only - the robot thread or the {@link LEDCompositor} - except
+ * the counters.
+ *
+ * <p>Usage:
+<pre><code>
+  final LEDPattern disabled =
+      LEDFrameCache.cached(LEDPattern.solid(Color.kRed).breathe(Seconds.of(2.0)), 2.0, 50);
+</code></pre>
+ */
+public final class LEDFrameCache {
+  private static int m_capacity = 256; // frames
+  private static volatile long m_hits; // single writer; read by the metrics server
+  private static volatile long m_misses;
+  private static volatile long m_evictions;
+
+  private static final FrameKey m_probe = new FrameKey(); // reused for lookups so a hit doesn't allocate
+
+  private static final LinkedHashMap<FrameKey, byte[]> m_frames =
+      new LinkedHashMap<>(64, 0.75f, true) { // access order for LRU
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FrameKey, byte[]> eldest) {
+          if (size() > m_capacity) {
+            m_evictions = m_evictions + 1;
+            return true;
+          }
+          return false;
+        }
+      };
+
+  private LEDFrameCache() {}
+
+  /**
+   * Key of a frame - pattern identity, view length, time bucket
+   */
+  private static final class FrameKey {
+    private LEDPattern m_pattern;
+    private int m_length;
+    private long m_bucket;
+
+    private FrameKey set(LEDPattern pattern, int length, long bucket) {
+      m_pattern = pattern;
+      m_length = length;
+      m_bucket = bucket;
+      return this;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof FrameKey)) {
+        return false;
+      }
+      FrameKey key = (FrameKey) other;
+      return key.m_pattern == m_pattern && key.m_length == m_length && key.m_bucket == m_bucket;
+    }
+
+    @Override
+    public int hashCode() {
+      return (System.identityHashCode(m_pattern) * 31 + m_length) * 31 + Long.hashCode(m_bucket);
+    }
+  }
+
+  /**
+   * Renders a pattern into a packed RGB frame
+   */
+  private static final class FrameRenderer implements LEDReader, LEDWriter {
+    private byte[] m_frame;
+
+    @Override
+    public int getLength() {
+      return m_frame.length / 3;
+    }
+
+    @Override
+    public int getRed(int index) {
+      return m_frame[index * 3] & 0xFF;
+    }
+
+    @Override
+    public int getGreen(int index) {
+      return m_frame[index * 3 + 1] & 0xFF;
+    }
+
+    @Override
+    public int getBlue(int index) {
+      return m_frame[index * 3 + 2] & 0xFF;
+    }
+
+    @Override
+    public void setRGB(int index, int r, int g, int b) {
+      m_frame[index * 3] = (byte) r;
+      m_frame[index * 3 + 1] = (byte) g;
+      m_frame[index * 3 + 2] = (byte) b;
+    }
+  }
+
+  private static final FrameRenderer m_renderer = new FrameRenderer();
+
+  /**
+   * The caching wrapper of a pattern
+   */
+  private static final class CachedPattern implements LEDPattern {
+    private final LEDPattern m_pattern;
+    private final long m_cycleUs; // 0 for a still pattern
+    private final int m_buckets;
+
+    private CachedPattern(LEDPattern pattern, long cycleUs, int buckets) {
+      m_pattern = pattern;
+      m_cycleUs = cycleUs;
+      m_buckets = buckets;
+    }
+
+    @Override
+    public void applyTo(LEDReader reader, LEDWriter writer) {
+      long bucket = m_cycleUs > 0 ? RobotController.getTime() % m_cycleUs * m_buckets / m_cycleUs : 0;
+      byte[] frame = frame(m_pattern, reader.getLength(), bucket);
+      for (int led = 0, i = 0; i < frame.length; led++, i += 3) {
+        writer.setRGB(led, frame[i] & 0xFF, frame[i + 1] & 0xFF, frame[i + 2] & 0xFF);
+      }
+    }
+  }
+
+  /**
+   * Cache the frames of a pattern that doesn't change
+   *
+   * @param pattern the pattern
+   * @return the pattern that applies the cached frame
+   */
+  public static LEDPattern cached(LEDPattern pattern) {
+    return new CachedPattern(pattern, 0, 1);
+  }
+
+  /**
+   * Cache the frames of an animated pattern that repeats
+   *
+   * @param pattern the pattern
+   * @param cycleSeconds period of the animation - blink on + off time or breathe period
+   * @param buckets number of distinct frames per cycle; more is smoother and takes more cache
+   * @return the pattern that applies the cached frames
+   */
+  public static LEDPattern cached(LEDPattern pattern, double cycleSeconds, int buckets) {
+    if (cycleSeconds <= 0. || buckets < 1) {
+      throw new IllegalArgumentException("LEDFrameCache cycle must be positive and at least 1 bucket");
+    }
+    return new CachedPattern(pattern, (long) (cycleSeconds * 1.e6), buckets);
+  }
+
+  /**
+   * The frame of a pattern - rendered if it isn't cached
+   */
+  private static byte[] frame(LEDPattern pattern, int length, long bucket) {
+    byte[] frame = m_frames.get(m_probe.set(pattern, length, bucket));
+    m_probe.set(null, 0, 0); // don't hold the pattern
+    if (frame != null) {
+      m_hits = m_hits + 1;
+      return frame;
+    }
+    m_misses = m_misses + 1;
+    frame = new byte[length * 3];
+    m_renderer.m_frame = frame;
+    pattern.applyTo(m_renderer, m_renderer);
+    m_renderer.m_frame = null;
+    m_frames.put(new FrameKey().set(pattern, length, bucket), frame);
+    return frame;
+  }
+
+  /**
+   * Set the maximum number of frames kept. Do this at startup.
+   *
+   * @param frames capacity; default 256
+   */
+  public static void setCapacity(int frames) {
+    if (frames < 1) {
+      throw new IllegalArgumentException("LEDFrameCache capacity must be at least 1");
+    }
+    m_capacity = frames;
+  }
+
+  /**
+   * Drop all the frames
+   */
+  public static void clear() {
+    m_frames.clear();
+  }
+
+  /**
+   * @return frames applied from the cache
+   */
+  public static long getHits() {
+    return m_hits;
+  }
+
+  /**
+   * @return frames rendered because they weren't cached
+   */
+  public static long getMisses() {
+    return m_misses;
+  }
+
+  /**
+   * @return frames dropped to stay within the capacity
+   */
+  public static long getEvictions() {
+    return m_evictions;
+  }
+}
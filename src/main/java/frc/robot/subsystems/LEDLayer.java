@@ -0,0 +1,117 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.LEDPattern;
+
+/**
+ * A signal drawn over an LEDView's own pattern without taking the view from the command that holds
+ * it.
+ *
+ * <p>Each view has one layer of each {@link Priority} above its base - the pattern of whichever
+ * command holds the view, default command included. Setting or clearing a layer is a field write so
+ * a status or an alert doesn't interrupt the base command and the base command doesn't have to be
+ * rescheduled afterwards. Higher priorities are drawn over lower ones.
+ *
+ * <p>Black LEDs of a layer are transparent (like LEDPattern.overlay()). Other LEDs are mixed with
+ * what's below by the layer's alpha - 1 covers, 0.5 is half and half.
+ *
+ * <p>A layer's pattern is rendered every loop in case it's animated. Say it's still with
+ * {@link #set(LEDPattern, double, boolean)} and it's rendered once when it's set.
+ *
+ * <p>Set layers on the robot thread.
+ *
+ * <p>Get a view's layer with {@link RobotSignals.LEDView#layer(Priority)}.
+ *
+ * <p>Usage:
+<pre><code>
+  LEDLayer alert = m_robotSignals.m_main.layer(LEDLayer.Priority.ALERT);
+  alert.set(LEDPattern.solid(Color.kRed).blink(Seconds.of(0.2)));
+  ...
+  alert.clear(); // the base signal shows again
+</code></pre>
+ */
+public final class LEDLayer {
+  /**
+   * Layers above the base, lowest first
+   */
+  public enum Priority {
+    STATUS,
+    ALERT
+  }
+
+  private final Priority m_priority;
+  volatile LEDPattern m_pattern; // robot thread writes; the rendering thread reads
+  volatile int m_alpha; // 0 to 256
+  volatile boolean m_changed; // set, cleared, or alpha changed since the last blend
+  volatile boolean m_animated; // render every loop; else only after it's set
+  final int[] m_rgb; // rendered layer 0xRRGGBB; rendering thread only
+  private final Runnable m_onSet;
+
+  LEDLayer(Priority priority, int length, Runnable onSet) {
+    m_priority = priority;
+    m_rgb = new int[length];
+    m_onSet = onSet;
+  }
+
+  /**
+   * Show a pattern covering the layers below
+   *
+   * @param pattern the pattern
+   */
+  public void set(LEDPattern pattern) {
+    set(pattern, 1.);
+  }
+
+  /**
+   * Show a pattern mixed with the layers below
+   *
+   * @param pattern the pattern
+   * @param alpha 0 to 1 - fraction of the layer's color in the mix
+   */
+  public void set(LEDPattern pattern, double alpha) {
+    set(pattern, alpha, true);
+  }
+
+  /**
+   * Show a pattern mixed with the layers below
+   *
+   * @param pattern the pattern
+   * @param alpha 0 to 1 - fraction of the layer's color in the mix
+   * @param animated true if the pattern changes over time (blink, scroll, ...) so it's rendered every
+   *     loop; false renders it once - set it again to show a change
+   */
+  public void set(LEDPattern pattern, double alpha, boolean animated) {
+    if (pattern == null) {
+      throw new IllegalArgumentException("LEDLayer pattern can't be null; use clear()");
+    }
+    if (alpha < 0. || alpha > 1.) {
+      throw new IllegalArgumentException("LEDLayer alpha is 0 to 1");
+    }
+    m_alpha = (int) Math.round(alpha * 256.);
+    m_animated = animated;
+    m_pattern = pattern;
+    m_changed = true;
+    m_onSet.run();
+  }
+
+  /**
+   * Stop showing the layer
+   */
+  public void clear() {
+    m_pattern = null;
+    m_changed = true;
+  }
+
+  /**
+   * @return true if the layer has a pattern
+   */
+  public boolean isSet() {
+    return m_pattern != null;
+  }
+
+  /**
+   * @return the layer's priority
+   */
+  public Priority getPriority() {
+    return m_priority;
+  }
+}
@@ -0,0 +1,194 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.LEDPattern;
+import edu.wpi.first.wpilibj.LEDReader;
+import edu.wpi.first.wpilibj.LEDWriter;
+
+/**
+ * The base pattern and the {@link LEDLayer}s of one view composed as one pattern.
+ *
+ * <p>While a layer is set the view's base pattern is kept here instead of being applied and the
+ * view applies the stack once per loop. Each layer (and the base) renders into its own frame and
+ * notes the range of LEDs that changed. A still layer is rendered only when it's set. Only the LEDs
+ * in the changed range are blended and written to the view - a still alert over a still base costs
+ * the base's pattern call and no blending or writing.
+ *
+ * <p>The base is the last pattern applied to the view - re-rendered each loop even if it came from a
+ * setSignalOnce() - or, if the view never had one, the LEDs it had when the first layer was set.
+ */
+final class LEDLayerStack implements LEDPattern {
+  private final LEDLayer[] m_layers; // lowest priority first
+  private volatile LEDPattern m_basePattern; // robot thread writes; the rendering thread reads
+  private volatile boolean m_capture; // copy the view into the base at the next render
+  private final int[] m_base; // rendering thread only
+  private final FrameWriter m_frameWriter = new FrameWriter();
+
+  /**
+   * Renders a pattern into a layer's frame noting changes
+   */
+  private static final class FrameWriter implements LEDReader, LEDWriter {
+    private int[] m_frame;
+    private int m_first; // changed LEDs; none if first > last
+    private int m_last;
+
+    @Override
+    public int getLength() {
+      return m_frame.length;
+    }
+
+    @Override
+    public int getRed(int index) {
+      return m_frame[index] >> 16 & 0xFF;
+    }
+
+    @Override
+    public int getGreen(int index) {
+      return m_frame[index] >> 8 & 0xFF;
+    }
+
+    @Override
+    public int getBlue(int index) {
+      return m_frame[index] & 0xFF;
+    }
+
+    @Override
+    public void setRGB(int index, int r, int g, int b) {
+      int rgb = (r & 0xFF) << 16 | (g & 0xFF) << 8 | (b & 0xFF);
+      if (m_frame[index] != rgb) {
+        m_frame[index] = rgb;
+        m_first = Math.min(m_first, index);
+        m_last = Math.max(m_last, index);
+      }
+    }
+  }
+
+  /**
+   * @param length number of LEDs of the view
+   * @param onSet run when a layer is set so the view is rendered
+   */
+  LEDLayerStack(int length, Runnable onSet) {
+    m_base = new int[length];
+    LEDLayer.Priority[] priorities = LEDLayer.Priority.values();
+    m_layers = new LEDLayer[priorities.length];
+    for (int i = 0; i < priorities.length; i++) {
+      m_layers[i] = new LEDLayer(priorities[i], length, onSet);
+    }
+  }
+
+  LEDLayer layer(LEDLayer.Priority priority) {
+    return m_layers[priority.ordinal()];
+  }
+
+  /**
+   * @return true if any layer is set
+   */
+  boolean isActive() {
+    for (int i = 0; i < m_layers.length; i++) {
+      if (m_layers[i].m_pattern != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Start composing
+   *
+   * @param base the pattern last applied to the view or null to use the view's LEDs until a base
+   *     pattern is set
+   */
+  void start(LEDPattern base) {
+    m_basePattern = base;
+    m_capture = base == null;
+  }
+
+  /**
+   * Keep the base pattern - the view's command applied it
+   */
+  void setBase(LEDPattern pattern) {
+    m_basePattern = pattern;
+  }
+
+  /**
+   * @return the base pattern or null if none was applied while composing
+   */
+  LEDPattern getBase() {
+    return m_basePattern;
+  }
+
+  @Override
+  public void applyTo(LEDReader reader, LEDWriter writer) {
+    int length = Math.min(reader.getLength(), m_base.length);
+    int first = Integer.MAX_VALUE; // LEDs to blend; none if first > last
+    int last = -1;
+
+    if (m_capture) {
+      m_capture = false;
+      for (int led = 0; led < length; led++) {
+        m_base[led] = reader.getRed(led) << 16 | reader.getGreen(led) << 8 | reader.getBlue(led);
+      }
+      first = 0;
+      last = length - 1;
+    }
+
+    LEDPattern base = m_basePattern;
+    if (base != null) {
+      render(base, m_base);
+      first = Math.min(first, m_frameWriter.m_first);
+      last = Math.max(last, m_frameWriter.m_last);
+    }
+
+    for (int i = 0; i < m_layers.length; i++) {
+      LEDLayer layer = m_layers[i];
+      boolean changed = layer.m_changed;
+      if (changed) {
+        layer.m_changed = false;
+        first = 0; // set, cleared, or a new alpha changes all its LEDs
+        last = length - 1;
+      }
+      LEDPattern pattern = layer.m_pattern;
+      if (pattern != null && (changed || layer.m_animated)) {
+        render(pattern, layer.m_rgb);
+        first = Math.min(first, m_frameWriter.m_first);
+        last = Math.max(last, m_frameWriter.m_last);
+      }
+    }
+
+    last = Math.min(last, length - 1);
+    for (int led = first; led <= last; led++) { // nothing if the view already shows this
+      int out = m_base[led];
+      for (int i = 0; i < m_layers.length; i++) {
+        LEDLayer layer = m_layers[i];
+        int rgb = layer.m_rgb[led];
+        if (layer.m_pattern == null || rgb == 0) {
+          continue; // not set or transparent
+        }
+        out = mix(out, rgb, layer.m_alpha);
+      }
+      writer.setRGB(led, out >> 16 & 0xFF, out >> 8 & 0xFF, out & 0xFF);
+    }
+  }
+
+  /**
+   * Render a pattern into a frame. The changed LEDs are m_frameWriter's first to last.
+   */
+  private void render(LEDPattern pattern, int[] frame) {
+    m_frameWriter.m_frame = frame;
+    m_frameWriter.m_first = Integer.MAX_VALUE;
+    m_frameWriter.m_last = -1;
+    pattern.applyTo(m_frameWriter, m_frameWriter);
+  }
+
+  /**
+   * @param alpha 0 to 256 - fraction of over
+   */
+  private static int mix(int under, int over, int alpha) {
+    if (alpha >= 256) {
+      return over;
+    }
+    int r = ((under >> 16 & 0xFF) * (256 - alpha) + (over >> 16 & 0xFF) * alpha) >> 8;
+    int g = ((under >> 8 & 0xFF) * (256 - alpha) + (over >> 8 & 0xFF) * alpha) >> 8;
+    int b = ((under & 0xFF) * (256 - alpha) + (over & 0xFF) * alpha) >> 8;
+    return r << 16 | g << 8 | b;
+  }
+}
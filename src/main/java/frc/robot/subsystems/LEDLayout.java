@@ -0,0 +1,187 @@
+package frc.robot.subsystems;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * The layout by LED number of the single physical buffer into named views, read at startup.
+ *
+ * <p>The file in src/main/deploy has one view per line - name, first LED, last LED - and # comments.
+ * LED numbers are zero-based and inclusive. A view is reversed if the first LED is after the last
+ * LED; writing front-to-back in the view will write in the back-to-front direction on the
+ * underlying buffer. Order doesn't matter.
+ *
+ * <p>Views can't overlap or share a name. The views are sorted by their lowest LED into an interval
+ * index so an overlap is found comparing each view with the next one - and the view of an LED is a
+ * binary search.
+ *
+ * <p>A bad layout is an IllegalArgumentException at startup - better than two commands fighting
+ * over the same LEDs on the field.
+ */
+public final class LEDLayout {
+  /**
+   * One view of the layout
+   */
+  public static final class Placement {
+    private final String m_name;
+    private final int m_first;
+    private final int m_last;
+
+    private Placement(String name, int first, int last) {
+      m_name = name;
+      m_first = first;
+      m_last = last;
+    }
+
+    public String getName() {
+      return m_name;
+    }
+
+    /**
+     * @return first LED of the view - after the last if reversed
+     */
+    public int getFirst() {
+      return m_first;
+    }
+
+    public int getLast() {
+      return m_last;
+    }
+
+    private int low() {
+      return Math.min(m_first, m_last);
+    }
+
+    private int high() {
+      return Math.max(m_first, m_last);
+    }
+  }
+
+  private final List<Placement> m_placements; // file order
+  private final int[] m_lows; // interval index sorted by low
+  private final int[] m_highs;
+  private final Placement[] m_sorted;
+  private final int m_length;
+
+  private LEDLayout(List<Placement> placements, String source) {
+    if (placements.isEmpty()) {
+      throw new IllegalArgumentException("LED layout " + source + " has no views");
+    }
+    m_placements = List.copyOf(placements);
+
+    HashSet<String> names = new HashSet<>();
+    for (Placement placement : m_placements) {
+      if (!names.add(placement.m_name)) {
+        throw new IllegalArgumentException("LED layout " + source + " has view " + placement.m_name + " twice");
+      }
+    }
+
+    m_sorted = m_placements.toArray(new Placement[0]);
+    Arrays.sort(m_sorted, (a, b) -> Integer.compare(a.low(), b.low()));
+    m_lows = new int[m_sorted.length];
+    m_highs = new int[m_sorted.length];
+    for (int i = 0; i < m_sorted.length; i++) {
+      m_lows[i] = m_sorted[i].low();
+      m_highs[i] = m_sorted[i].high();
+      if (i > 0 && m_lows[i] <= m_highs[i - 1]) {
+        throw new IllegalArgumentException("LED layout " + source + " views " + m_sorted[i - 1].m_name
+            + " and " + m_sorted[i].m_name + " overlap at LED " + m_lows[i]);
+      }
+    }
+    m_length = m_highs[m_highs.length - 1] + 1; // position is zero-based; + 1 for length
+  }
+
+  /**
+   * Read a layout file from the deploy directory
+   *
+   * @param fileName name of the file in src/main/deploy
+   * @return the layout
+   * @throws IOException if the file can't be read
+   */
+  public static LEDLayout fromDeploy(String fileName) throws IOException {
+    File file = new File(Filesystem.getDeployDirectory(), fileName);
+    List<String> lines = Files.readAllLines(file.toPath());
+    List<Placement> placements = new ArrayList<>(lines.size());
+    for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+      String line = lines.get(lineNumber - 1);
+      int comment = line.indexOf('#');
+      if (comment >= 0) {
+        line = line.substring(0, comment);
+      }
+      line = line.strip();
+      if (line.isEmpty()) {
+        continue;
+      }
+      String[] fields = line.split("\\s+");
+      try {
+        if (fields.length != 3) {
+          throw new NumberFormatException();
+        }
+        int first = Integer.parseInt(fields[1]);
+        int last = Integer.parseInt(fields[2]);
+        if (first < 0 || last < 0) {
+          throw new NumberFormatException();
+        }
+        placements.add(new Placement(fields[0], first, last));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("LED layout " + fileName + " line " + lineNumber
+            + " isn't \"name first last\": " + lines.get(lineNumber - 1));
+      }
+    }
+    return new LEDLayout(placements, fileName);
+  }
+
+  /**
+   * Make a layout in code
+   *
+   * @param names view names
+   * @param first first LED of each view
+   * @param last last LED of each view
+   * @return the layout
+   */
+  public static LEDLayout of(String[] names, int[] first, int[] last) {
+    if (names.length != first.length || names.length != last.length) {
+      throw new IllegalArgumentException("LED layout needs a first and last LED for each name");
+    }
+    List<Placement> placements = new ArrayList<>(names.length);
+    for (int i = 0; i < names.length; i++) {
+      placements.add(new Placement(names[i], first[i], last[i]));
+    }
+    return new LEDLayout(placements, "in code");
+  }
+
+  /**
+   * @return the views in the order they were listed
+   */
+  public List<Placement> getPlacements() {
+    return m_placements;
+  }
+
+  /**
+   * @return number of LEDs in the strip - highest LED used + 1
+   */
+  public int getLength() {
+    return m_length;
+  }
+
+  /**
+   * Find the view of an LED
+   *
+   * @param led LED number
+   * @return the view or null if no view has the LED
+   */
+  public Placement placementOf(int led) {
+    int index = Arrays.binarySearch(m_lows, led);
+    if (index < 0) {
+      index = -index - 2; // the view starting before the LED
+    }
+    return index >= 0 && led <= m_highs[index] ? m_sorted[index] : null;
+  }
+}
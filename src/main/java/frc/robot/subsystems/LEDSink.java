@@ -0,0 +1,37 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.LEDReader;
+
+/**
+ * Where RobotSignals sends the finished LED buffer.
+ *
+ * <p>The robot uses {@link AddressableLEDSink} - the PWM strip. Without a strip - benchmarks of the
+ * rendering and pushing on any computer, LED soak tests in CI - use {@link MemoryLEDSink} to keep
+ * the recent frames or {@link FileLEDSink} to record every frame. RobotSignals still needs WPILib's
+ * native libraries (the views are subsystems; the clock and the Alerts use the HAL) as in simulation
+ * and the gradle test task; give it a clock with RobotSignals.setTimeSource() to step time in a test.
+ *
+ * <p>Called on the thread that sends - the robot thread, or RobotSignals' Notifier thread after
+ * startNotifier(). Only one thread at a time; a sink read by another thread guards its frames.
+ *
+ * <p>Usage:
+<pre><code>
+  MemoryLEDSink frames = new MemoryLEDSink(100);
+  RobotSignals signals = new RobotSignals(LEDLayout.fromDeploy("ledlayout.txt"), frames);
+</code></pre>
+ */
+public interface LEDSink {
+  /**
+   * Prepare for frames. Called once by RobotSignals before the first frame.
+   *
+   * @param length number of LEDs
+   */
+  void start(int length);
+
+  /**
+   * Send a frame. Copy what's needed - the buffer is changed after this returns.
+   *
+   * @param buffer the LEDs - an AddressableLEDBuffer or a {@link DirectLEDBuffer} from RobotSignals
+   */
+  void write(LEDReader buffer);
+}
@@ -0,0 +1,88 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.LEDReader;
+
+/**
+ * Keeps the most recent frames in memory - no strip - for tests and benchmarks.
+ *
+ * <p>The frames are 4 bytes per LED in send order - blue, green, red, pad like AddressableLEDBuffer
+ * and {@link DirectLEDBuffer} - in a preallocated ring so recording doesn't allocate. A
+ * DirectLEDBuffer's frame is one bulk copy of its memory. The frame count and {@link #getRGB(int, int)} can be read from any thread - the
+ * frames are written on the Notifier thread if RobotSignals sends from one.
+ * {@link #getFrame(int)} returns the ring's array so read it on the thread that sends or after the
+ * sending stops.
+ */
+public class MemoryLEDSink implements LEDSink {
+  private final int m_capacity;
+  private byte[][] m_frames;
+  private int m_length;
+  private volatile long m_frameCount; // single writer
+
+  /**
+   * @param capacity number of recent frames kept
+   */
+  public MemoryLEDSink(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("MemoryLEDSink keeps at least 1 frame");
+    }
+    m_capacity = capacity;
+  }
+
+  @Override
+  public void start(int length) {
+    m_length = length;
+    m_frames = new byte[m_capacity][length * 4];
+  }
+
+  @Override
+  public synchronized void write(LEDReader buffer) {
+    byte[] frame = m_frames[(int) (m_frameCount % m_capacity)];
+    if (buffer instanceof DirectLEDBuffer) {
+      ((DirectLEDBuffer) buffer).getByteBuffer().get(0, frame); // same layout
+    } else {
+      for (int led = 0, i = 0; led < m_length; led++, i += 4) {
+        frame[i] = (byte) buffer.getBlue(led);
+        frame[i + 1] = (byte) buffer.getGreen(led);
+        frame[i + 2] = (byte) buffer.getRed(led);
+      }
+    }
+    m_frameCount = m_frameCount + 1;
+  }
+
+  /**
+   * @return number of frames written since the start
+   */
+  public long getFrameCount() {
+    return m_frameCount;
+  }
+
+  /**
+   * @return number of LEDs
+   */
+  public int getLength() {
+    return m_length;
+  }
+
+  /**
+   * Get a recent frame
+   *
+   * @param age 0 for the last frame, 1 for the one before it, ... up to the capacity - 1
+   * @return the frame - blue, green, red, pad for each LED; don't change it
+   */
+  public byte[] getFrame(int age) {
+    if (age < 0 || age >= m_capacity || age >= m_frameCount) {
+      throw new IllegalArgumentException("MemoryLEDSink doesn't have frame " + age + " back");
+    }
+    return m_frames[(int) ((m_frameCount - 1 - age) % m_capacity)];
+  }
+
+  /**
+   * @param age 0 for the last frame
+   * @param led LED number
+   * @return 0xRRGGBB of the LED in the frame
+   */
+  public synchronized int getRGB(int age, int led) {
+    byte[] frame = getFrame(age);
+    return (frame[led * 4 + 2] & 0xFF) << 16 | (frame[led * 4 + 1] & 0xFF) << 8 | (frame[led * 4] & 0xFF);
+  }
+}
@@ -81,6 +81,8 @@ public class MooreLikeFSMAlternate extends SubsystemBase {
 
   private LightState m_initialState = LightState.Light1; // when the FSM is turned on - state starts here
   private LightState m_currentState = LightState.Inactive; // FSM isn't running initially
+  private final LEDView.PatternSlot m_light; // holds the view; swapping patterns doesn't schedule commands
+  private final LEDPattern[] m_lightSignals = new LEDPattern[LightState.Inactive.ordinal()]; // made once
 
   /**
    * A Moore-Like FSM to display lights similar to the Knight Rider Kitt Scanner
@@ -93,6 +95,10 @@ public class MooreLikeFSMAlternate extends SubsystemBase {
     m_robotSignals = robotSignals;
     m_periodFactor = periodFactor;
     m_color = color;
+    m_light = robotSignals.newSlot("Moore-Like " + color + " light");
+    for (int light = 0; light < m_lightSignals.length; light++) {
+      m_lightSignals[light] = LEDFrameCache.cached(oneLEDSmeared(light, m_color, Color.kBlack)); // rendered once per view length
+    }
     createTransitions();
     startFSM(); // This FSM runs also disabled so start it immediately.
                 // If the FSM doesn't run disabled, then start it in auto or periodic init.
@@ -240,8 +246,7 @@ public class MooreLikeFSMAlternate extends SubsystemBase {
       // steady-state action
         () ->
           {
-            LEDPattern currentStateSignal = oneLEDSmeared(state.ordinal(), m_color, Color.kBlack);
-            m_robotSignals.setSignal(currentStateSignal).schedule();
+            m_light.show(m_lightSignals[state.ordinal()]); // field write once the slot holds the view
             SmartDashboard.putString("FSM steady-state action "+this, state.name());
           },
 
@@ -4,6 +4,7 @@ import static edu.wpi.first.wpilibj2.command.Commands.none;
 import static edu.wpi.first.wpilibj2.command.Commands.sequence;
 import static edu.wpi.first.wpilibj2.command.Commands.waitSeconds;
 
+import frc.robot.CommandProfiler;
 import frc.robot.subsystems.RobotSignals.LEDView;
 
 import edu.wpi.first.wpilibj.LEDPattern;
@@ -85,6 +86,9 @@ public class MooreLikeFSMMultiCommand extends SubsystemBase {
   private Command m_transitionToInitialState; // when the FSM is turned on - commands for the initial state
   private State m_currentState;
   private boolean m_FSMactive = false;  // FSM isn't running initially
+  private final LEDView.PatternSlot m_light; // holds the view; swapping patterns doesn't schedule commands
+  private final LEDPattern[] m_lightSignals = new LEDPattern[State.values().length]; // made once
+  private final LEDPattern m_off = LEDPattern.solid(Color.kBlack);
   /**
    * A Moore-Like FSM to display lights similar to the Knight Rider Kitt Scanner
    * 
@@ -96,6 +100,10 @@ public class MooreLikeFSMMultiCommand extends SubsystemBase {
     m_robotSignals = robotSignals;
     m_periodFactor = periodFactor;
     m_color = color;
+    m_light = robotSignals.newSlot(this.getClass().getSimpleName() + " " + color + " light");
+    for (State state : State.values()) {
+      m_lightSignals[state.ordinal()] = LEDFrameCache.cached(oneLEDSmeared(state.ordinal(), m_color, Color.kBlack)); // rendered once per view length
+    }
     createTransitions();
     startFSM(); // This FSM also runs disabled so it can be started immediately.
     // If the FSM doesn't run disabled, then start it in auto or periodic init or as a command anywhere.
@@ -319,14 +327,13 @@ public class MooreLikeFSMMultiCommand extends SubsystemBase {
    */
   private final Command activateLightSteadystate(State nextState)
   {
-    return
+    return CommandProfiler.profile(
       new FunctionalCommand(
         ()-> {},
 
         () -> // steady-state action
           {
-            LEDPattern currentStateSignal = oneLEDSmeared(nextState.ordinal(), m_color, Color.kBlack);
-            m_robotSignals.setSignal(currentStateSignal).schedule();
+            m_light.show(m_lightSignals[nextState.ordinal()]); // field write once the slot holds the view
             SmartDashboard.putString("FSM steady-state action "+this, nextState.name());
           },
 
@@ -336,7 +343,7 @@ public class MooreLikeFSMMultiCommand extends SubsystemBase {
 
       )
       .withName(this.getClass().getSimpleName() + " " + m_color + " steady-state " + nextState)
-      .ignoringDisable(true);
+      .ignoringDisable(true));
   }
 
   /**
@@ -364,9 +371,8 @@ public class MooreLikeFSMMultiCommand extends SubsystemBase {
    * @return Command to turn all Lights off when FSM not active
    */
   private Command turnOffAllLights() {
-    LEDPattern off = LEDPattern.solid(Color.kBlack);
     return
-      runOnce(() -> m_robotSignals.setSignal(off).schedule())
+      runOnce(() -> m_light.show(m_off))
         .ignoringDisable(true)
         .withName(this.getClass().getSimpleName() + " " + m_color + " FSM off");
   }
@@ -1,11 +1,25 @@
 package frc.robot.subsystems;
 
-import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.AddressableLEDBufferView;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.LEDPattern;
+import edu.wpi.first.wpilibj.LEDReader;
+import edu.wpi.first.wpilibj.LEDWriter;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.MetricsServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
 
 /**
  * Manage the addressable LEDs as signaling subsystems.
@@ -13,6 +27,33 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
  * <p>This is the creator and container of the LEDView subsystems.
  *
  * <p>Buffer is not cleared.
+ *
+ * <p>A command that changes its pattern often - the FSMs change every few loops - should hold a
+ * {@link LEDView.PatternSlot} instead of scheduling setSignal() each time. The slot's command
+ * acquires the view once and the pattern is swapped with a field write; the view applies the held
+ * slot's pattern once per loop in runAfterCommands().
+ *
+ * <p>The frames go to an {@link LEDSink} - the PWM strip unless a headless sink is given. The LEDs
+ * are kept in an AddressableLEDBuffer or, if asked, a {@link DirectLEDBuffer} in native memory.
+ *
+ * <p>The views are laid out by {@link LEDLayout} from src/main/deploy/ledlayout.txt. Only the views
+ * with a held slot or a layer are rendered in runAfterCommands() and only the views that changed are
+ * cleared after a send so the work per loop follows the views in use, not the length of the strip.
+ *
+ * <p>The buffer is only sent to the strip when a view changed an LED or when the keep-alive interval
+ * has passed. Patterns write through a writer that compares each LED with the buffer so a solid
+ * pattern applied every loop doesn't count as a change. Each view keeps the range of LEDs changed
+ * since the last send.
+ *
+ * <p>{@link #startCompositor()} moves the rendering to a background thread. The view commands then
+ * only select their patterns and the strip is sent the newest frame the {@link LEDCompositor}
+ * finished - the previous loop's. The views' changed LED ranges aren't kept in that mode.
+ *
+ * <p>{@link #startNotifier(double, double)} also moves the sending to a Notifier at its own frame
+ * rate, slower when disabled, and skips frames while the main loop overruns.
+ *
+ * <p>Status and alert signals can be drawn over a view's pattern with its {@link LEDLayer}s
+ * instead of interrupting the view's command.
  * 
  * <p>An alternative implementation that deserves consideration for most uses is:
  *   make the default command "black, off"
@@ -48,9 +89,25 @@ public class RobotSignals {
     LEDPattern get();
   }
 
-  private final AddressableLED m_strip;
-  private final AddressableLEDBuffer m_bufferLED;
+  private final LEDSink m_sink; // the strip or a headless sink
+  private final LEDReader m_bufferLED; // AddressableLEDBuffer or DirectLEDBuffer
   private static int m_length = 0; // length of the buffer - last LED used + 1 for the number 0 LED
+  private volatile long m_framesPushed; // written by the robot thread; read by the metrics server
+  private volatile long m_framesSkipped; // unchanged buffer not sent
+  private boolean m_bufferDirty = true; // an LED changed since the last send; send the first one
+  private long m_keepAliveUs = 1_000_000; // send unchanged buffer this often
+  private long m_lastPushUs;
+  private LongSupplier m_timeUs = RobotController::getFPGATime; // any thread that sends
+  private final List<LEDView> m_views = new ArrayList<>();
+  private LEDCompositor m_compositor; // null renders on the robot thread
+  private LEDReader m_frame; // buffer sent to the strip
+  private Notifier m_notifier; // null sends from runAfterCommands()
+  private double m_enabledPeriod;
+  private double m_disabledPeriod;
+  private boolean m_notifierDisabled; // robot thread; which period the notifier runs at
+  private LongSupplier m_overruns = () -> 0; // main loop overrun count; any thread
+  private long m_lastOverruns; // notifier thread
+  private volatile long m_framesThrottled; // notifier frames not rendered because the main loop overran
 
   // location in the LED string is defined and reserved for all examples even if not selected to run
   public final LEDView m_top;
@@ -61,67 +118,98 @@ public class RobotSignals {
   public final LEDView m_knightRider;
   public final LEDView m_imposter;
 
+  private static final int m_addressableLedPwmPort = 1;
+  private static final String m_layoutFile = "ledlayout.txt"; // in src/main/deploy
+  private final Map<String, LEDView> m_viewsByName = new HashMap<>();
+  private final List<LEDView> m_renderViews = new ArrayList<>(); // views with a held slot or a layer
+  private final List<LEDView> m_dirtyViews = new ArrayList<>(); // views changed since the last send
+
   /**
-   * Layout by LED number of the single physical buffer into multiple logical views or resources/subsystems.
-   * 
-   * Location of view in buffer - zero-based buffer numbering.
-   * 
-   * Order doesn't matter.
+   * Create the views of the layout in src/main/deploy/ledlayout.txt - or the examples' built-in
+   * layout if the file can't be read.
+   */
+  public RobotSignals() {
+    this(loadLayout());
+  }
 
-   * A view will be reversed if the starting index is after the
-   * ending index; writing front-to-back in the view will write
-   * in the back-to-front direction on the underlying buffer.
+  /**
+   * Create the views of a layout on the LED strip
    *
-   * You take your chances with overlapping views.
-   */
-  private static enum LEDViewPlacement {
-    TOP           (0, 7),
-    MAIN          (8, 15),
-    ENABLEDISABLE (16, 23),
-    HISTORYDEMO   (24, 31),
-    ACHIEVEHUEGOAL(32, 39),
-    KNIGHTRIDER   (40, 47),
-    IMPOSTER      (48, 55);
-  
-    public int first;
-    public int last;
-
-    /**
-     * Location of view in buffer [zero-based numbering]
-     * 
-     * @param first LED number inclusive
-     * @param last LED number inclusive
-     */
-    private LEDViewPlacement(int first, int last)
-    {
-      this.first = first;
-      this.last = last;
-    }
+   * @param layout the views; must have the examples' views
+   */
+  public RobotSignals(LEDLayout layout) {
+    this(layout, new AddressableLEDSink(m_addressableLedPwmPort));
   }
 
-  public RobotSignals() {
+  /**
+   * Create the views of a layout sending the frames to a sink - the strip or a headless sink
+   *
+   * @param layout the views; must have the examples' views
+   * @param sink where the frames go
+   */
+  public RobotSignals(LEDLayout layout, LEDSink sink) {
+    this(layout, sink, false);
+  }
 
-    // find number of LEDs used
-    for(LEDViewPlacement index : LEDViewPlacement.values())
-    {
-      m_length = Math.max(m_length, index.last + 1); // position is zero-based; + 1 for length
-    }
+  /**
+   * Create the views of a layout sending the frames to a sink
+   *
+   * @param layout the views; must have the examples' views
+   * @param sink where the frames go
+   * @param directBuffer true to keep the LEDs in a {@link DirectLEDBuffer} instead of an
+   *     AddressableLEDBuffer - for a sink that takes its memory without copying
+   */
+  public RobotSignals(LEDLayout layout, LEDSink sink, boolean directBuffer) {
 
-    // start updating the physical LED strip
-    final int addressableLedPwmPort = 1;
-    m_strip = new AddressableLED(addressableLedPwmPort);
-    m_strip.setLength(m_length);
-    m_strip.start();
-    m_bufferLED = new AddressableLEDBuffer(m_length); // buffer for all of the LEDs
+    m_length = layout.getLength();
+
+    // start updating the LEDs
+    m_sink = sink;
+    m_sink.start(m_length);
+    m_bufferLED = directBuffer
+        ? new DirectLEDBuffer(m_length)
+        : new AddressableLEDBuffer(m_length); // buffer for all of the LEDs
+    m_frame = m_bufferLED;
 
     // create the resources (subsystems) as views of the LED buffer
-    m_top            = new LEDView(LEDViewPlacement.TOP);
-    m_main           = new LEDView(LEDViewPlacement.MAIN);
-    m_enableDisable  = new LEDView(LEDViewPlacement.ENABLEDISABLE);
-    m_historyDemo    = new LEDView(LEDViewPlacement.HISTORYDEMO);
-    m_achieveHueGoal = new LEDView(LEDViewPlacement.ACHIEVEHUEGOAL);
-    m_knightRider    = new LEDView(LEDViewPlacement.KNIGHTRIDER);
-    m_imposter       = new LEDView(LEDViewPlacement.IMPOSTER);
+    for (LEDLayout.Placement placement : layout.getPlacements()) {
+      m_viewsByName.put(placement.getName(), new LEDView(placement));
+    }
+
+    m_top            = getView("top");
+    m_main           = getView("main");
+    m_enableDisable  = getView("enableDisable");
+    m_historyDemo    = getView("historyDemo");
+    m_achieveHueGoal = getView("achieveHueGoal");
+    m_knightRider    = getView("knightRider");
+    m_imposter       = getView("imposter");
+  }
+
+  private static LEDLayout loadLayout() {
+    try {
+      return LEDLayout.fromDeploy(m_layoutFile);
+    } catch (IOException e) {
+      new Alert("LED layout " + m_layoutFile + " not read; using the built-in layout: " + e.getMessage(),
+          AlertType.kWarning).set(true);
+      return LEDLayout.of(
+          new String[] {"top", "main", "enableDisable", "historyDemo", "achieveHueGoal", "knightRider", "imposter"},
+          new int[]    {0,     8,      16,              24,            32,               40,            48},
+          new int[]    {7,     15,     23,              31,            39,               47,            55});
+    }
+  }
+
+  /**
+   * Get a view of the layout by name
+   *
+   * @param name name in the layout
+   * @return the view
+   */
+  public LEDView getView(String name) {
+    LEDView view = m_viewsByName.get(name);
+    if (view == null) {
+      throw new IllegalArgumentException("LED layout has no view " + name);
+    }
+    return view;
   }
 
   /**
@@ -133,16 +221,426 @@ public class RobotSignals {
    * Run after commands and triggers
    */
   public void runAfterCommands() {
-    m_strip.setData(m_bufferLED); // run periodically to send the buffer to the LEDs
+    for (int i = 0; i < m_renderViews.size();) {
+      LEDView view = m_renderViews.get(i);
+      view.render();
+      if (view.needsRender()) {
+        i++;
+      } else { // nothing more to render; swap with the last to remove
+        view.m_rendering = false;
+        m_renderViews.set(i, m_renderViews.get(m_renderViews.size() - 1));
+        m_renderViews.remove(m_renderViews.size() - 1);
+      }
+    }
+
+    if (m_notifier != null) {
+      m_compositor.publish(); // latest selections for the notifier to render
+      boolean disabled = DriverStation.isDisabled();
+      if (disabled != m_notifierDisabled) {
+        m_notifierDisabled = disabled;
+        m_notifier.startPeriodic(disabled ? m_disabledPeriod : m_enabledPeriod);
+      }
+      return; // the notifier renders and sends
+    }
+
+    if (m_compositor != null) {
+      m_compositor.publish(); // this loop's selections to the compositor thread
+      AddressableLEDBuffer frame = m_compositor.takeFrame(); // newest finished frame
+      if (frame != null) {
+        m_frame = frame;
+        m_bufferDirty |= m_compositor.isFrameChanged();
+      }
+    }
+
+    send();
+  }
+
+  /**
+   * Send the frame if it changed or the keep-alive interval has passed - on the robot thread or the
+   * notifier thread, whichever sends
+   */
+  private void send() {
+    long now = m_timeUs.getAsLong();
+    if (!m_bufferDirty && now - m_lastPushUs < m_keepAliveUs) {
+      m_framesSkipped = m_framesSkipped + 1; // single writer
+      return;
+    }
+
+    m_sink.write(m_frame); // send the buffer to the LEDs
+    m_framesPushed = m_framesPushed + 1; // single writer - whichever thread sends
+    m_lastPushUs = now;
+    m_bufferDirty = false;
+    for (int i = 0; i < m_dirtyViews.size(); i++) {
+      m_dirtyViews.get(i).clearDirty();
+    }
+    m_dirtyViews.clear();
+  }
+
+  /**
+   * Render the views on a background thread from now on. Do this at startup after the views are
+   * created.
+   */
+  public void startCompositor() {
+    if (m_compositor != null) {
+      return;
+    }
+    int[] first = new int[m_views.size()];
+    int[] last = new int[m_views.size()];
+    for (int i = 0; i < m_views.size(); i++) {
+      first[i] = m_views.get(i).m_first;
+      last[i] = m_views.get(i).m_last;
+    }
+    m_compositor = new LEDCompositor(m_length, first, last, true);
+  }
+
+  /**
+   * Render and send the LEDs at their own frame rate on a Notifier from now on instead of once per
+   * robot loop. Do this at startup after the views are created and instead of
+   * {@link #startCompositor()}.
+   *
+   * <p>The view commands select their patterns as with the compositor and runAfterCommands() only
+   * hands the latest selections over - it never waits for the LEDs. The notifier renders the latest
+   * selections each frame so animations move at the LED frame rate. A frame is skipped if the main
+   * loop overran since the last frame ({@link #setOverrunCount(LongSupplier)}) so the LEDs are the
+   * first thing to slow down.
+   *
+   * @param enabledHz frames per second when enabled - 50 to 100 for smooth animations
+   * @param disabledHz frames per second when disabled - 25 is plenty
+   */
+  public void startNotifier(double enabledHz, double disabledHz) {
+    if (enabledHz <= 0. || disabledHz <= 0.) {
+      throw new IllegalArgumentException("LED frame rates must be positive");
+    }
+    if (m_compositor != null) {
+      throw new IllegalArgumentException("LED compositor already started; start the notifier instead");
+    }
+    int[] first = new int[m_views.size()];
+    int[] last = new int[m_views.size()];
+    for (int i = 0; i < m_views.size(); i++) {
+      first[i] = m_views.get(i).m_first;
+      last[i] = m_views.get(i).m_last;
+    }
+    m_compositor = new LEDCompositor(m_length, first, last, false);
+    m_enabledPeriod = 1. / enabledHz;
+    m_disabledPeriod = 1. / disabledHz;
+    m_notifierDisabled = DriverStation.isDisabled();
+    m_lastOverruns = m_overruns.getAsLong();
+    m_notifier = new Notifier(this::notifierFrame);
+    m_notifier.setName("LEDNotifier");
+    m_notifier.startPeriodic(m_notifierDisabled ? m_disabledPeriod : m_enabledPeriod);
+  }
+
+  /**
+   * Clock of the keep-alive interval. Do this at startup.
+   *
+   * @param microseconds time in microseconds; default RobotController::getFPGATime - a test can
+   *     supply its own time to step the keep-alive without waiting
+   */
+  public void setTimeSource(LongSupplier microseconds) {
+    m_timeUs = microseconds;
+  }
+
+  /**
+   * Count of the main loop's overruns - the notifier skips a frame when it goes up
+   *
+   * @param overruns read on the notifier thread; for example LoopTimer::getOverruns
+   */
+  public void setOverrunCount(LongSupplier overruns) {
+    m_overruns = overruns;
+  }
+
+  /**
+   * One LED frame - notifier thread
+   */
+  private void notifierFrame() {
+    long overruns = m_overruns.getAsLong();
+    if (overruns != m_lastOverruns) {
+      m_lastOverruns = overruns;
+      m_framesThrottled = m_framesThrottled + 1; // single writer
+      return; // the main loop is behind; let it have the CPU
+    }
+
+    m_compositor.renderLatest();
+    AddressableLEDBuffer frame = m_compositor.takeFrame();
+    if (frame != null) {
+      m_frame = frame;
+      m_bufferDirty |= m_compositor.isFrameChanged();
+    }
+    send();
+  }
+
+  /**
+   * @return number of notifier frames skipped because the main loop overran
+   */
+  public long getFramesThrottled() {
+    return m_framesThrottled;
+  }
+
+  /**
+   * Send the buffer to the strip at least this often even if nothing changed.
+   *
+   * @param seconds keep-alive interval; 0 sends every loop; default 1 second
+   */
+  public void setKeepAlive(double seconds) {
+    m_keepAliveUs = (long) (seconds * 1.e6);
+  }
+
+  /**
+   * @return number of times the buffer wasn't sent because nothing changed
+   */
+  public long getFramesSkipped() {
+    return m_framesSkipped;
+  }
+
+  /**
+   * @return number of times the buffer was sent to the LEDs
+   */
+  public long getFramesPushed() {
+    return m_framesPushed;
+  }
+
+  /**
+   * Write the LED push, skip, throttle, and frame cache counts for the {@link MetricsServer}. Safe to call
+   * from another thread.
+   *
+   * @param out the metrics text
+   */
+  public void writeMetrics(StringBuilder out) {
+    MetricsServer.header(out, "robot_led_frames_pushed_total", "counter", "LED buffer sends to the strip");
+    out.append("robot_led_frames_pushed_total ").append(m_framesPushed).append('\n');
+    MetricsServer.header(out, "robot_led_frames_skipped_total", "counter", "Loops the unchanged LED buffer wasn't sent");
+    out.append("robot_led_frames_skipped_total ").append(m_framesSkipped).append('\n');
+    MetricsServer.header(out, "robot_led_frames_throttled_total", "counter", "LED notifier frames skipped because the main loop overran");
+    out.append("robot_led_frames_throttled_total ").append(m_framesThrottled).append('\n');
+    MetricsServer.header(out, "robot_led_frame_cache_total", "counter", "LEDFrameCache lookups by result");
+    out.append("robot_led_frame_cache_total{result=\"hit\"} ").append(LEDFrameCache.getHits()).append('\n');
+    out.append("robot_led_frame_cache_total{result=\"miss\"} ").append(LEDFrameCache.getMisses()).append('\n');
+    out.append("robot_led_frame_cache_total{result=\"evicted\"} ").append(LEDFrameCache.getEvictions()).append('\n');
   }
 
   /** LED view resource (subsystem) */
   public class LEDView extends SubsystemBase {
 
-    private final AddressableLEDBufferView m_view;
+    private final LEDReader m_view; // of whichever buffer
+    private final LEDWriter m_viewWriter; // the same view
+    private final int m_index; // in m_views
+    private final int m_first;
+    private final int m_last;
+    private final LEDWriter m_changeWriter = this::setRGBIfChanged; // patterns write through this
+    private int m_dirtyFirst = Integer.MAX_VALUE; // range of LEDs changed since the last send
+    private int m_dirtyLast = -1;
+    private PatternSlot m_activeSlot; // slot whose command holds the view or null
+    private final LEDLayerStack m_stack;
+    private boolean m_composing; // a layer is set so the base pattern goes to the stack
+    private LEDPattern m_lastBase; // last pattern applied to the view
+    private boolean m_rendering; // in m_renderViews
+
+    private LEDView(LEDLayout.Placement placement) {
+      if (m_bufferLED instanceof DirectLEDBuffer) {
+        DirectLEDBuffer.View view =
+            ((DirectLEDBuffer) m_bufferLED).createView(placement.getFirst(), placement.getLast());
+        m_view = view;
+        m_viewWriter = view;
+      } else {
+        AddressableLEDBufferView view =
+            ((AddressableLEDBuffer) m_bufferLED).createView(placement.getFirst(), placement.getLast());
+        m_view = view;
+        m_viewWriter = view;
+      }
+      m_first = placement.getFirst();
+      m_last = placement.getLast();
+      m_index = m_views.size();
+      m_views.add(this);
+      m_stack = new LEDLayerStack(m_view.getLength(), this::startRendering);
+      setName("LEDView " + placement.getName());
+    }
+
+    /**
+     * Render this view each loop until it has nothing to render
+     */
+    private void startRendering() {
+      if (!m_rendering) {
+        m_rendering = true;
+        m_renderViews.add(this);
+      }
+    }
+
+    private boolean needsRender() {
+      return m_activeSlot != null || m_composing || m_stack.isActive();
+    }
+
+    /**
+     * Apply a base pattern - to the layer stack if a layer is set
+     */
+    private void apply(LEDPattern pattern) {
+      if (m_composing) {
+        m_stack.setBase(pattern);
+        return;
+      }
+      m_lastBase = pattern;
+      applyToView(pattern);
+    }
+
+    /**
+     * Apply a pattern to the view marking the LEDs that change - or select it for the compositor
+     */
+    private void applyToView(LEDPattern pattern) {
+      if (m_compositor != null) {
+        m_compositor.select(m_index, pattern);
+        return;
+      }
+      pattern.applyTo(m_view, m_changeWriter);
+    }
+
+    private void setRGBIfChanged(int index, int r, int g, int b) {
+      if (m_view.getRed(index) == r && m_view.getGreen(index) == g && m_view.getBlue(index) == b) {
+        return;
+      }
+      m_viewWriter.setRGB(index, r, g, b);
+      if (m_dirtyLast < 0) {
+        m_dirtyViews.add(this);
+      }
+      m_dirtyFirst = Math.min(m_dirtyFirst, index);
+      m_dirtyLast = Math.max(m_dirtyLast, index);
+      m_bufferDirty = true;
+    }
+
+    /**
+     * Apply the held slot's pattern and the layers - once per loop
+     */
+    private void render() {
+      PatternSlot slot = m_activeSlot;
+      if (slot != null && slot.m_pattern != null) {
+        apply(slot.m_pattern);
+      }
+
+      boolean layered = m_stack.isActive();
+      if (layered && !m_composing) {
+        m_composing = true;
+        m_stack.start(m_lastBase);
+      }
+      if (m_composing) {
+        applyToView(m_stack);
+        if (!layered) {
+          m_composing = false; // that was the base alone; back to applying directly
+          if (m_stack.getBase() != null) {
+            m_lastBase = m_stack.getBase();
+          }
+        }
+      }
+    }
+
+    /**
+     * Get a layer drawn over this view's pattern. Setting a layer doesn't require the view.
+     *
+     * @param priority which layer
+     * @return the layer
+     */
+    public LEDLayer layer(LEDLayer.Priority priority) {
+      return m_stack.layer(priority);
+    }
+
+    private void clearDirty() {
+      m_dirtyFirst = Integer.MAX_VALUE;
+      m_dirtyLast = -1;
+    }
+
+    /**
+     * @return true if an LED of the view changed since the buffer was last sent
+     */
+    public boolean isDirty() {
+      return m_dirtyLast >= 0;
+    }
+
+    /**
+     * @return first LED of the view changed since the last send or Integer.MAX_VALUE if none
+     */
+    public int getDirtyFirst() {
+      return m_dirtyFirst;
+    }
 
-    private LEDView(LEDViewPlacement placement) {
-      m_view = m_bufferLED.createView(placement.first, placement.last);
+    /**
+     * @return last LED of the view changed since the last send or -1 if none
+     */
+    public int getDirtyLast() {
+      return m_dirtyLast;
+    }
+
+    /**
+     * A pattern holder for a command that changes the pattern often. Create once at startup with
+     * {@link LEDView#newSlot(String)}.
+     *
+     * <p>The slot's {@link #hold()} command requires the view so the scheduler still decides who
+     * owns the LEDs. While it runs the slot's pattern is applied every loop and {@link #set(LEDPattern)}
+     * is a field write - no command is created or scheduled and no other command is interrupted.
+     * A slot that isn't held keeps its pattern but isn't shown.
+     */
+    public final class PatternSlot {
+      private final Command m_hold;
+      private LEDPattern m_pattern;
+      private boolean m_held;
+
+      private PatternSlot(String name) {
+        m_hold = startEnd(
+            () -> {
+              m_held = true;
+              m_activeSlot = this;
+              startRendering();
+            },
+            () -> {
+              m_held = false;
+              if (m_activeSlot == this) {
+                m_activeSlot = null;
+              }
+            })
+          .ignoringDisable(true)
+          .withName(name);
+      }
+
+      /**
+       * @return the command that holds the view for this slot until interrupted
+       */
+      public Command hold() {
+        return m_hold;
+      }
+
+      /**
+       * @return true if the slot's command holds the view
+       */
+      public boolean isHeld() {
+        return m_held;
+      }
+
+      /**
+       * Swap the pattern. Shown while the slot is held.
+       *
+       * @param pattern the pattern or null to leave the LEDs as they are
+       */
+      public void set(LEDPattern pattern) {
+        m_pattern = pattern;
+      }
+
+      /**
+       * Swap the pattern and schedule the hold command if it's not holding the view
+       *
+       * @param pattern the pattern
+       */
+      public void show(LEDPattern pattern) {
+        m_pattern = pattern;
+        if (!m_held) {
+          m_hold.schedule();
+        }
+      }
+    }
+
+    /**
+     * Create a pattern slot of this view. Do this at startup.
+     *
+     * @param name name of the slot's hold command
+     * @return the slot
+     */
+    public PatternSlot newSlot(String name) {
+      return new PatternSlot(name);
     }
 
     /*
@@ -175,7 +673,7 @@ public class RobotSignals {
      * @return Command to apply pattern to LEDs
      */
     public Command setSignal(LEDPattern pattern) {
-      return run(() -> pattern.applyTo(m_view)).ignoringDisable(true).withName("LedSet");
+      return run(() -> apply(pattern)).ignoringDisable(true).withName("LedSet");
     }
 
     /**
@@ -185,7 +683,7 @@ public class RobotSignals {
      * @return Command to apply pattern to LEDs
      */
     public Command setSignal(LEDPatternSupplier pattern) {
-      return run(() -> pattern.get().applyTo(m_view)).ignoringDisable(true).withName("LedSetS");
+      return run(() -> apply(pattern.get())).ignoringDisable(true).withName("LedSetS");
     }
 
     /**
@@ -197,7 +695,7 @@ public class RobotSignals {
      * @return Command to apply pattern to LEDs
      */
     public Command setSignalOnce(LEDPattern pattern) {
-      return runOnce(() -> pattern.applyTo(m_view)).ignoringDisable(true).withName("LedSetO");
+      return runOnce(() -> apply(pattern)).ignoringDisable(true).withName("LedSetO");
     }
 
     /**
@@ -209,7 +707,7 @@ public class RobotSignals {
      * @return Command to apply pattern to LEDs
      */
     public Command setSignalOnce(LEDPatternSupplier pattern) {
-      return runOnce(() -> pattern.get().applyTo(m_view)).ignoringDisable(true).withName("LedSetSO");
+      return runOnce(() -> apply(pattern.get())).ignoringDisable(true).withName("LedSetSO");
     }
   } // End LEDView
 }
@@ -0,0 +1,78 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.LEDPattern;
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * Selections made in one loop only reach the frame even if the renderer skips that loop
+ */
+class LEDCompositorTest {
+  private static final LEDPattern m_red = LEDPattern.solid(Color.kRed);
+
+  @BeforeEach
+  void setup() {
+    assertTrue(HAL.initialize(500, 0));
+  }
+
+  @Test
+  void renderLatestRendersTheSelectionOfASkippedLoop() {
+    LEDCompositor compositor = new LEDCompositor(8, new int[] {0}, new int[] {7}, false);
+
+    compositor.select(0, m_red);
+    compositor.publish(); // the only loop with a selection
+    compositor.publish(); // the Notifier is slower than the loop
+    compositor.renderLatest();
+
+    AddressableLEDBuffer frame = compositor.takeFrame();
+    assertNotNull(frame);
+    assertEquals(255, frame.getRed(0));
+    assertEquals(255, frame.getRed(7));
+  }
+
+  @Test
+  void loopWithoutASelectionKeepsTheLEDs() {
+    LEDCompositor compositor = new LEDCompositor(8, new int[] {0}, new int[] {7}, false);
+
+    compositor.select(0, m_red);
+    compositor.publish();
+    compositor.renderLatest();
+    compositor.takeFrame();
+    compositor.publish();
+    compositor.renderLatest();
+
+    AddressableLEDBuffer frame = compositor.takeFrame();
+    assertNotNull(frame);
+    assertEquals(255, frame.getRed(3));
+  }
+
+  @Test
+  void compositorThreadRendersTheSelectionOfASkippedLoop() throws InterruptedException {
+    LEDCompositor compositor = new LEDCompositor(8, new int[] {0}, new int[] {7}, true);
+
+    compositor.select(0, m_red);
+    compositor.publish();
+    for (int loop = 0; loop < 10; loop++) {
+      compositor.publish(); // faster than the thread may take them
+    }
+
+    long deadline = System.nanoTime() + 2_000_000_000L;
+    int red = 0;
+    while (red != 255 && System.nanoTime() < deadline) {
+      AddressableLEDBuffer frame = compositor.takeFrame();
+      if (frame != null) {
+        red = frame.getRed(0);
+      }
+      Thread.sleep(1);
+    }
+    assertEquals(255, red);
+  }
+}
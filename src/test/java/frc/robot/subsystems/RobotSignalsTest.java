@@ -0,0 +1,92 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.LEDPattern;
+import edu.wpi.first.wpilibj.util.Color;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * RobotSignals with a MemoryLEDSink - no strip - and a test clock
+ */
+class RobotSignalsTest {
+  private static final LEDLayout m_layout = LEDLayout.of(
+      new String[] {"top", "main", "enableDisable", "historyDemo", "achieveHueGoal", "knightRider", "imposter"},
+      new int[]    {0,     8,      16,              24,            32,               40,            48},
+      new int[]    {7,     15,     23,              31,            39,               47,            55});
+
+  private MemoryLEDSink m_sink;
+  private RobotSignals m_signals;
+  private long m_nowUs = 1_000_000;
+
+  @BeforeEach
+  void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    m_sink = new MemoryLEDSink(4);
+    m_signals = new RobotSignals(m_layout, m_sink);
+    m_signals.setTimeSource(() -> m_nowUs);
+  }
+
+  @AfterEach
+  void shutdown() {
+    CommandScheduler.getInstance().cancelAll();
+    CommandScheduler.getInstance().unregisterAllSubsystems();
+  }
+
+  @Test
+  void firstLoopSendsTheLayout() {
+    m_signals.runAfterCommands();
+
+    assertEquals(56, m_sink.getLength());
+    assertEquals(1, m_sink.getFrameCount());
+  }
+
+  @Test
+  void layerIsSentToItsViewOnly() {
+    m_signals.runAfterCommands();
+    m_signals.m_main.layer(LEDLayer.Priority.ALERT).set(LEDPattern.solid(Color.kRed));
+    m_signals.runAfterCommands();
+
+    assertEquals(2, m_sink.getFrameCount());
+    assertEquals(0x000000, m_sink.getRGB(0, 7)); // top
+    assertEquals(0xFF0000, m_sink.getRGB(0, 8)); // main
+    assertEquals(0xFF0000, m_sink.getRGB(0, 15));
+    assertEquals(0x000000, m_sink.getRGB(0, 16)); // enableDisable
+  }
+
+  @Test
+  void unchangedFrameIsSentAtTheKeepAlive() {
+    m_signals.runAfterCommands();
+    m_signals.runAfterCommands();
+    assertEquals(1, m_sink.getFrameCount());
+    assertEquals(1, m_signals.getFramesSkipped());
+
+    m_nowUs += 1_000_000; // default keep-alive 1 second
+    m_signals.runAfterCommands();
+    assertEquals(2, m_sink.getFrameCount());
+  }
+
+  @Test
+  void oneLoopSelectionReachesTheSinkWithTheCompositor() throws InterruptedException {
+    m_signals.startCompositor();
+    m_signals.setKeepAlive(0.); // send every loop
+    m_signals.m_main.setSignalOnce(LEDPattern.solid(Color.kRed)).schedule();
+    CommandScheduler.getInstance().run(); // the only loop that selects the pattern
+    m_signals.runAfterCommands();
+
+    long deadline = System.nanoTime() + 2_000_000_000L;
+    while (m_sink.getRGB(0, 8) != 0xFF0000 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+      CommandScheduler.getInstance().run();
+      m_signals.runAfterCommands();
+    }
+    assertEquals(0xFF0000, m_sink.getRGB(0, 8));
+    assertEquals(0x000000, m_sink.getRGB(0, 16));
+  }
+}
@@ -0,0 +1,485 @@
+package frc.robot.tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Desktop tool to summarize the command lifecycle records that CommandSchedulerLog puts in a
+ * .wpilog file - the DataLog tool to CSV to Excel path falls over on a full match log.
+ *
+ * <p>Reads either kind of CommandSchedulerLog output:
+ * <ul>
+ * <li>the structured log - "Commands/events", "Commands/summary" and "Commands/dictionary"
+ * <li>the string log through NT - ".../Commands/initialize", "execute", "interrupt", "finish", and
+ * "summary"
+ * </ul>
+ *
+ * <p>The file is memory-mapped in windows and streamed once, record by record, so a log of hundreds of
+ * MB takes no more memory than a small one. The memory used grows only with the number of different
+ * commands and interrupter pairs. The .wpilog format is parsed here so the tool needs nothing from
+ * WPILib.
+ *
+ * <p>Output (CSV sections separated by a blank line or a JSON object):
+ * <ul>
+ * <li>commands - runs, finished, interrupted, executes, total/mean/max run duration (ms)
+ * <li>interrupts - who interrupted whom and how often; "(none)" is a cancel, timeout, mode change,
+ * etc.
+ * <li>longest - the top N longest runs
+ * </ul>
+ * Runs of summarized commands are counted but have no durations. If two runs of the same command
+ * overlap the later start is used.
+ *
+ * <p>Usage:
+<pre><code>
+  ./gradlew analyzeCommandLog -Plog=FRC_20250315_183012.wpilog -Pformat=json -Ptop=20
+  java -cp build/classes/java/tools frc.robot.tools.CommandLogAnalyzer log.wpilog [csv|json] [top N]
+</code></pre>
+ */
+public final class CommandLogAnalyzer {
+  // structured log event types - same as CommandSchedulerLog
+  private static final int EVENT_INITIALIZE = 0;
+  private static final int EVENT_EXECUTE = 1;
+  private static final int EVENT_INTERRUPT = 2;
+  private static final int EVENT_FINISH = 3;
+  private static final int EVENT_RECORD_SIZE = 1 + 4 + 8 + 4 + 4;
+  private static final int SUMMARY_RECORD_SIZE = 6 * 4;
+
+  private static final long m_windowSize = 64L * 1024 * 1024; // bytes mapped at a time
+  private static final String m_none = "(none)";
+
+  // string log messages - see CommandSchedulerLog
+  private static final Pattern m_runsPattern = Pattern.compile(" after (\\d+) runs");
+  private static final Pattern m_summaryPattern = Pattern.compile(
+      " (\\d+) initialized, (\\d+) finished, (\\d+) interrupted, (\\d+) executes(, last interrupted by command (.*))?$");
+
+  /** What a .wpilog entry id is */
+  private enum EntryKind {
+    EVENTS, SUMMARY, DICTIONARY, INITIALIZE, EXECUTE, INTERRUPT, FINISH, SUMMARY_STRING
+  }
+
+  /** Totals of a command */
+  private static final class CommandStats {
+    private final String m_name;
+    private long m_runs;
+    private long m_finished;
+    private long m_interrupted;
+    private long m_executes;
+    private long m_timedRuns;
+    private long m_totalUs;
+    private long m_maxUs;
+    private long m_startUs = -1; // start of the open run
+
+    private CommandStats(String name) {
+      m_name = name;
+    }
+  }
+
+  /** A completed run for the longest list */
+  private record Run(String name, long startUs, long durationUs, boolean interrupted) {}
+
+  private final Map<Integer, EntryKind> m_entries = new HashMap<>();
+  private final Map<Integer, String> m_dictionary = new HashMap<>(); // structured command id to name
+  private final Map<String, CommandStats> m_commands = new HashMap<>();
+  private final Map<String, Map<String, Long>> m_interrupts = new HashMap<>();
+  private final PriorityQueue<Run> m_longest; // shortest of the longest on top
+  private final int m_top;
+
+  private FileChannel m_channel;
+  private long m_fileSize;
+  private MappedByteBuffer m_window;
+  private long m_windowStart;
+
+  private CommandLogAnalyzer(int top) {
+    m_top = top;
+    m_longest = new PriorityQueue<>(Math.max(top, 1) + 1, (a, b) -> Long.compare(a.durationUs(), b.durationUs()));
+  }
+
+  /**
+   * @param args log file name, optional "csv" (default) or "json", optional number of longest runs
+   *     (default 10)
+   * @throws IOException log can't be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args[0].isEmpty()) {
+      System.err.println("Usage: CommandLogAnalyzer log.wpilog [csv|json] [top N]");
+      System.exit(1);
+    }
+    String format = args.length > 1 ? args[1] : "csv";
+    int top = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    if (!format.equals("csv") && !format.equals("json")) {
+      throw new IllegalArgumentException("Format must be csv or json, not " + format);
+    }
+
+    CommandLogAnalyzer analyzer = new CommandLogAnalyzer(top);
+    analyzer.read(Path.of(args[0]));
+    if (format.equals("json")) {
+      analyzer.writeJson(System.out);
+    } else {
+      analyzer.writeCsv(System.out);
+    }
+  }
+
+  /**
+   * Stream through the log once.
+   *
+   * @param log the .wpilog file
+   * @throws IOException log can't be read
+   */
+  private void read(Path log) throws IOException {
+    try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+      m_channel = channel;
+      m_fileSize = channel.size();
+
+      // header - "WPILOG", version, extra header
+      if (m_fileSize < 12) {
+        throw new IllegalArgumentException(log + " is not a .wpilog file");
+      }
+      ensure(0, 12);
+      byte[] magic = new byte[6];
+      m_window.get(0, magic);
+      if (!new String(magic, StandardCharsets.US_ASCII).equals("WPILOG")) {
+        throw new IllegalArgumentException(log + " is not a .wpilog file");
+      }
+      int version = m_window.getShort(6) & 0xFFFF;
+      if (version != 0x0100) {
+        throw new IllegalArgumentException("Unsupported .wpilog version " + Integer.toHexString(version));
+      }
+      long position = 12 + (m_window.getInt(8) & 0xFFFFFFFFL);
+
+      while (position < m_fileSize) {
+        // record header - bitfield of the lengths of the entry id, payload size, and timestamp
+        ensure(position, 1);
+        int lengths = m_window.get((int) (position - m_windowStart)) & 0xFF;
+        int entryLength = (lengths & 0x3) + 1;
+        int sizeLength = ((lengths >> 2) & 0x3) + 1;
+        int timestampLength = ((lengths >> 4) & 0x7) + 1;
+        int headerLength = 1 + entryLength + sizeLength + timestampLength;
+        if (position + headerLength > m_fileSize) {
+          break; // truncated - the robot was turned off while writing
+        }
+
+        ensure(position, headerLength);
+        long offset = position - m_windowStart + 1;
+        int entry = (int) readLittleEndian(offset, entryLength);
+        long size = readLittleEndian(offset + entryLength, sizeLength);
+        long timestamp = readLittleEndian(offset + entryLength + sizeLength, timestampLength);
+        long payload = position + headerLength;
+        if (payload + size > m_fileSize) {
+          break; // truncated
+        }
+
+        ensure(payload, (int) size);
+        int payloadOffset = (int) (payload - m_windowStart);
+        if (entry == 0) {
+          control(payloadOffset, (int) size);
+        } else {
+          EntryKind kind = m_entries.get(entry);
+          if (kind != null) {
+            record(kind, payloadOffset, (int) size, timestamp);
+          }
+        }
+        position = payload + size;
+      }
+    }
+  }
+
+  /**
+   * Map the window so the bytes from position for length are in it.
+   */
+  private void ensure(long position, int length) throws IOException {
+    if (m_window != null && position >= m_windowStart
+        && position + length <= m_windowStart + m_window.capacity()) {
+      return;
+    }
+    m_windowStart = position;
+    long windowLength = Math.min(Math.max(m_windowSize, length), m_fileSize - position);
+    m_window = m_channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+    m_window.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private long readLittleEndian(long offset, int length) {
+    long value = 0;
+    for (int i = 0; i < length; i++) {
+      value |= (m_window.get((int) offset + i) & 0xFFL) << (8 * i);
+    }
+    return value;
+  }
+
+  private String readString(int offset, int length) {
+    byte[] bytes = new byte[length];
+    m_window.get(offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Control record - start of an entry tells its name and type; the rest don't matter here.
+   */
+  private void control(int offset, int size) {
+    if (size < 5 || m_window.get(offset) != 0) {
+      return; // not a start record
+    }
+    int entry = m_window.getInt(offset + 1);
+    int nameLength = m_window.getInt(offset + 5);
+    String name = readString(offset + 9, nameLength);
+    int typeLength = m_window.getInt(offset + 9 + nameLength);
+    String type = readString(offset + 13 + nameLength, typeLength);
+
+    EntryKind kind = null;
+    if (name.equals("Commands/events") && type.equals("CommandEvent")) {
+      kind = EntryKind.EVENTS;
+    } else if (name.equals("Commands/summary") && type.equals("CommandSummary")) {
+      kind = EntryKind.SUMMARY;
+    } else if (name.equals("Commands/dictionary")) {
+      kind = EntryKind.DICTIONARY;
+    } else if (type.equals("string") && name.startsWith("NT:")) {
+      if (name.endsWith("/Commands/initialize")) {
+        kind = EntryKind.INITIALIZE;
+      } else if (name.endsWith("/Commands/execute")) {
+        kind = EntryKind.EXECUTE;
+      } else if (name.endsWith("/Commands/interrupt")) {
+        kind = EntryKind.INTERRUPT;
+      } else if (name.endsWith("/Commands/finish")) {
+        kind = EntryKind.FINISH;
+      } else if (name.endsWith("/Commands/summary")) {
+        kind = EntryKind.SUMMARY_STRING;
+      }
+    }
+    if (kind != null) {
+      m_entries.put(entry, kind);
+    }
+  }
+
+  /**
+   * Data record of one of the command entries
+   */
+  private void record(EntryKind kind, int offset, int size, long timestamp) {
+    switch (kind) {
+      case EVENTS -> {
+        if (size != EVENT_RECORD_SIZE) {
+          return;
+        }
+        int type = m_window.get(offset);
+        String name = commandName(m_window.getInt(offset + 1));
+        int runs = m_window.getInt(offset + 13);
+        int interrupter = m_window.getInt(offset + 17);
+        switch (type) {
+          case EVENT_INITIALIZE -> initialize(name, timestamp);
+          case EVENT_EXECUTE -> { } // first execute or a sample; counts come with the end
+          case EVENT_INTERRUPT -> end(name, timestamp, runs, true, interrupter < 0 ? m_none : commandName(interrupter));
+          case EVENT_FINISH -> end(name, timestamp, runs, false, null);
+          default -> { }
+        }
+      }
+      case SUMMARY -> {
+        if (size != SUMMARY_RECORD_SIZE) {
+          return;
+        }
+        int interrupter = m_window.getInt(offset + 20);
+        summary(commandName(m_window.getInt(offset)), m_window.getInt(offset + 4), m_window.getInt(offset + 8),
+            m_window.getInt(offset + 12), m_window.getInt(offset + 16),
+            interrupter < 0 ? null : commandName(interrupter));
+      }
+      case DICTIONARY -> {
+        String line = readString(offset, size);
+        int comma = line.indexOf(',');
+        if (comma > 0) {
+          m_dictionary.put(Integer.parseInt(line.substring(0, comma)), line.substring(comma + 1));
+        }
+      }
+      case INITIALIZE -> {
+        String line = readString(offset, size);
+        int requirements = line.lastIndexOf(" {");
+        initialize(requirements > 0 ? line.substring(0, requirements) : line, timestamp);
+      }
+      case EXECUTE -> { } // counts come with the end
+      case INTERRUPT, FINISH -> {
+        String line = readString(offset, size);
+        Matcher runs = m_runsPattern.matcher(line);
+        if (!runs.find()) {
+          return;
+        }
+        String name = line.substring(0, runs.start());
+        int count = Integer.parseInt(runs.group(1));
+        if (kind == EntryKind.FINISH) {
+          end(name, timestamp, count, false, null);
+        } else {
+          String rest = line.substring(runs.end());
+          String marker = " interrupted by command ";
+          end(name, timestamp, count, true, rest.startsWith(marker) ? rest.substring(marker.length()) : m_none);
+        }
+      }
+      case SUMMARY_STRING -> {
+        String line = readString(offset, size);
+        Matcher summary = m_summaryPattern.matcher(line);
+        if (summary.find()) {
+          summary(line.substring(0, summary.start()), Integer.parseInt(summary.group(1)),
+              Integer.parseInt(summary.group(2)), Integer.parseInt(summary.group(3)),
+              Integer.parseInt(summary.group(4)), summary.group(6));
+        }
+      }
+      default -> { }
+    }
+  }
+
+  /**
+   * Structured log names include the requirements; strip them to match the string log names.
+   */
+  private String commandName(int id) {
+    String name = m_dictionary.get(id);
+    if (name == null) {
+      return "#" + id;
+    }
+    int requirements = name.lastIndexOf(" {");
+    return requirements > 0 ? name.substring(0, requirements) : name;
+  }
+
+  private CommandStats stats(String name) {
+    return m_commands.computeIfAbsent(name, CommandStats::new);
+  }
+
+  private void initialize(String name, long timestamp) {
+    CommandStats stats = stats(name);
+    stats.m_runs++;
+    stats.m_startUs = timestamp;
+  }
+
+  private void end(String name, long timestamp, int executes, boolean interrupted, String interrupter) {
+    CommandStats stats = stats(name);
+    stats.m_executes += executes;
+    if (interrupted) {
+      stats.m_interrupted++;
+      countInterrupt(name, interrupter, 1);
+    } else {
+      stats.m_finished++;
+    }
+
+    if (stats.m_startUs >= 0) {
+      long duration = timestamp - stats.m_startUs;
+      stats.m_timedRuns++;
+      stats.m_totalUs += duration;
+      stats.m_maxUs = Math.max(stats.m_maxUs, duration);
+      if (m_top > 0) {
+        m_longest.add(new Run(name, stats.m_startUs, duration, interrupted));
+        if (m_longest.size() > m_top) {
+          m_longest.poll();
+        }
+      }
+      stats.m_startUs = -1;
+    }
+  }
+
+  private void summary(String name, int initializes, int finishes, int interrupts, int executes, String interrupter) {
+    CommandStats stats = stats(name);
+    stats.m_runs += initializes;
+    stats.m_finished += finishes;
+    stats.m_interrupted += interrupts;
+    stats.m_executes += executes;
+    if (interrupts > 0) {
+      countInterrupt(name, interrupter != null ? interrupter : m_none, interrupts); // only the last is known
+    }
+  }
+
+  private void countInterrupt(String interrupted, String interrupter, long count) {
+    m_interrupts.computeIfAbsent(interrupted, k -> new HashMap<>()).merge(interrupter, count, Long::sum);
+  }
+
+  private List<Run> longestFirst() {
+    List<Run> runs = new ArrayList<>(m_longest);
+    runs.sort((a, b) -> Long.compare(b.durationUs(), a.durationUs()));
+    return runs;
+  }
+
+  private static String csv(String text) {
+    return "\"" + text.replace("\"", "\"\"") + "\"";
+  }
+
+  private static String json(String text) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (char c : text.toCharArray()) {
+      switch (c) {
+        case '"' -> quoted.append("\\\"");
+        case '\\' -> quoted.append("\\\\");
+        default -> {
+          if (c < 0x20) {
+            quoted.append(String.format("\\u%04x", (int) c));
+          } else {
+            quoted.append(c);
+          }
+        }
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  private static double ms(long us) {
+    return us / 1000.;
+  }
+
+  private void writeCsv(PrintStream out) {
+    out.println("command,runs,finished,interrupted,executes,total_ms,mean_ms,max_ms");
+    m_commands.values().stream().sorted((a, b) -> Long.compare(b.m_totalUs, a.m_totalUs)).forEach(stats ->
+        out.printf("%s,%d,%d,%d,%d,%.3f,%.3f,%.3f%n", csv(stats.m_name), stats.m_runs, stats.m_finished,
+            stats.m_interrupted, stats.m_executes, ms(stats.m_totalUs),
+            stats.m_timedRuns == 0 ? 0. : ms(stats.m_totalUs) / stats.m_timedRuns, ms(stats.m_maxUs)));
+
+    out.println();
+    out.println("interrupted,interrupter,count");
+    m_interrupts.forEach((interrupted, interrupters) -> interrupters.forEach((interrupter, count) ->
+        out.printf("%s,%s,%d%n", csv(interrupted), csv(interrupter), count)));
+
+    out.println();
+    out.println("command,start_s,duration_ms,ended");
+    for (Run run : longestFirst()) {
+      out.printf("%s,%.6f,%.3f,%s%n", csv(run.name()), run.startUs() / 1.e6, ms(run.durationUs()),
+          run.interrupted() ? "interrupted" : "finished");
+    }
+  }
+
+  private void writeJson(PrintStream out) {
+    out.println("{");
+    out.println("  \"commands\": [");
+    List<CommandStats> commands = new ArrayList<>(m_commands.values());
+    commands.sort((a, b) -> Long.compare(b.m_totalUs, a.m_totalUs));
+    for (int i = 0; i < commands.size(); i++) {
+      CommandStats stats = commands.get(i);
+      out.printf("    {\"command\": %s, \"runs\": %d, \"finished\": %d, \"interrupted\": %d, \"executes\": %d, "
+          + "\"total_ms\": %.3f, \"mean_ms\": %.3f, \"max_ms\": %.3f}%s%n",
+          json(stats.m_name), stats.m_runs, stats.m_finished, stats.m_interrupted, stats.m_executes,
+          ms(stats.m_totalUs), stats.m_timedRuns == 0 ? 0. : ms(stats.m_totalUs) / stats.m_timedRuns,
+          ms(stats.m_maxUs), i < commands.size() - 1 ? "," : "");
+    }
+    out.println("  ],");
+
+    out.println("  \"interrupts\": [");
+    List<String> interrupts = new ArrayList<>();
+    m_interrupts.forEach((interrupted, interrupters) -> interrupters.forEach((interrupter, count) ->
+        interrupts.add(String.format("    {\"interrupted\": %s, \"interrupter\": %s, \"count\": %d}",
+            json(interrupted), json(interrupter), count))));
+    out.println(String.join(",\n", interrupts));
+    out.println("  ],");
+
+    out.println("  \"longest\": [");
+    List<Run> runs = longestFirst();
+    for (int i = 0; i < runs.size(); i++) {
+      Run run = runs.get(i);
+      out.printf("    {\"command\": %s, \"start_s\": %.6f, \"duration_ms\": %.3f, \"ended\": \"%s\"}%s%n",
+          json(run.name()), run.startUs() / 1.e6, ms(run.durationUs()),
+          run.interrupted() ? "interrupted" : "finished", i < runs.size() - 1 ? "," : "");
+    }
+    out.println("  ]");
+    out.println("}");
+  }
+}